@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal benchmark harness in the spirit of JMH, with no dependencies so it
+ * builds with plain javac like the rest of the project.
+ *
+ * Each case prepares its state outside the timed region, runs warmup
+ * invocations until the JIT has settled, then times measured invocations and
+ * reports the mean time per operation with a 99.9% confidence interval.
+ * Console output of the benchmarked code is discarded while it runs.
+ * Results go to a tab-separated file that later runs can be compared
+ * against to flag regressions.
+ */
+public class BenchmarkRunner {
+    
+    /**
+     * Prepares state for a case and returns the timed action
+     */
+    public interface Setup extends Callable<Runnable> {
+    }
+    
+    // One benchmark at one parameter value
+    private static final class Case {
+        final String name;
+        final String param;
+        final int operations;
+        final Setup setup;
+        final boolean freshState;
+        final Runnable teardown;
+        
+        Case(String name, String param, int operations, Setup setup, boolean freshState, Runnable teardown) {
+            this.name = name;
+            this.param = param;
+            this.operations = operations;
+            this.setup = setup;
+            this.freshState = freshState;
+            this.teardown = teardown;
+        }
+    }
+    
+    /**
+     * Score of one case: mean nanoseconds per operation and the half-width
+     * of its 99.9% confidence interval
+     */
+    public static final class Result {
+        final String name;
+        final String param;
+        final double score;
+        final double error;
+        
+        Result(String name, String param, double score, double error) {
+            this.name = name;
+            this.param = param;
+            this.score = score;
+            this.error = error;
+        }
+        
+        String key() {
+            return name + "\t" + param;
+        }
+    }
+    
+    // Student's t for 99.9% confidence, by degrees of freedom (index = df - 1, capped)
+    private static final double[] T_999 = {636.6, 31.6, 12.9, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59,
+        4.44, 4.32, 4.22, 4.14, 4.07, 4.01, 3.97, 3.92, 3.88, 3.85, 3.82, 3.79, 3.77, 3.75, 3.73,
+        3.71, 3.69, 3.67, 3.66, 3.65};
+    private static final double T_999_LIMIT = 3.29;
+    
+    // Written by consume so the JIT cannot drop unused results
+    private static volatile Object sink;
+    
+    private final List<Case> cases = new ArrayList<>();
+    private long warmupMillis = 2000;
+    private long measureMillis = 3000;
+    private int minInvocations = 5;
+    private Pattern include = Pattern.compile(".*");
+    
+    /**
+     * Keeps a result alive, as JMH's Blackhole does
+     */
+    public static void consume(Object value) {
+        sink = value;
+    }
+    
+    public static void consume(long value) {
+        sink = value;
+    }
+    
+    /**
+     * Adds a case whose state is prepared once and reused by every invocation,
+     * for operations that do not change it (queries, filters)
+     * @param operations Operations one invocation of the action performs
+     */
+    public void add(String name, Object param, int operations, Setup setup) {
+        cases.add(new Case(name, String.valueOf(param), operations, setup, false, null));
+    }
+    
+    /**
+     * Adds a case whose setup runs again, untimed, before every invocation,
+     * for operations that use their state up (draining a queue, removing
+     * tasks): the setup can rebuild the state or undo the previous invocation
+     */
+    public void addWithFreshState(String name, Object param, int operations, Setup setup) {
+        addWithFreshState(name, param, operations, setup, null);
+    }
+    
+    /**
+     * Adds a case like addWithFreshState, with a teardown run after its last
+     * invocation to undo it, for state that later cases share
+     */
+    public void addWithFreshState(String name, Object param, int operations, Setup setup, Runnable teardown) {
+        cases.add(new Case(name, String.valueOf(param), operations, setup, true, teardown));
+    }
+    
+    public void setTimes(long warmupMillis, long measureMillis, int minInvocations) {
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+        this.minInvocations = minInvocations;
+    }
+    
+    /**
+     * Runs only cases whose "name param" matches the pattern somewhere
+     */
+    public void setInclude(String regex) {
+        this.include = Pattern.compile(regex);
+    }
+    
+    /**
+     * Runs every included case, printing each result as it completes. Each
+     * case is dropped once it has run, so state only it uses can be collected.
+     */
+    public List<Result> run() throws Exception {
+        List<Result> results = new ArrayList<>();
+        System.out.printf("%-44s %10s %14s %12s%n", "Benchmark", "Param", "Score", "Error");
+        for (Iterator<Case> remaining = cases.iterator(); remaining.hasNext(); ) {
+            Case benchmarkCase = remaining.next();
+            remaining.remove();
+            if (!include.matcher(benchmarkCase.name + " " + benchmarkCase.param).find()) {
+                continue;
+            }
+            PrintStream console = System.out;
+            Result result;
+            try {
+                System.setOut(new PrintStream(new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+                    
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                    }
+                }));
+                result = measure(benchmarkCase);
+            } finally {
+                System.setOut(console);
+            }
+            results.add(result);
+            System.out.printf(Locale.ROOT, "%-44s %10s %14.3f ± %10.3f  ns/op%n",
+                result.name, result.param, result.score, result.error);
+            // Keep one case's garbage out of the next one's timings
+            System.gc();
+        }
+        return results;
+    }
+    
+    private Result measure(Case benchmarkCase) throws Exception {
+        Runnable action = benchmarkCase.freshState ? null : benchmarkCase.setup.call();
+        
+        long warmupEnd = System.nanoTime() + warmupMillis * 1_000_000L;
+        for (int i = 0; i < minInvocations || System.nanoTime() < warmupEnd; i++) {
+            time(benchmarkCase.freshState ? benchmarkCase.setup.call() : action);
+        }
+        
+        List<Double> samples = new ArrayList<>();
+        long measuredNanos = 0;
+        while (samples.size() < minInvocations || measuredNanos < measureMillis * 1_000_000L) {
+            long nanos = time(benchmarkCase.freshState ? benchmarkCase.setup.call() : action);
+            measuredNanos += nanos;
+            samples.add(nanos / (double) benchmarkCase.operations);
+        }
+        if (benchmarkCase.teardown != null) {
+            benchmarkCase.teardown.run();
+        }
+        
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= samples.size();
+        double variance = 0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        variance /= samples.size() - 1;
+        int degrees = samples.size() - 1;
+        double t = degrees <= T_999.length ? T_999[degrees - 1] : T_999_LIMIT;
+        return new Result(benchmarkCase.name, benchmarkCase.param, mean, t * Math.sqrt(variance / samples.size()));
+    }
+    
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+    
+    /**
+     * Writes results as tab-separated lines: name, param, score, error, unit
+     * @param header Comment lines describing the run (machine, JVM)
+     */
+    public static void write(Path file, List<String> header, List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : header) {
+            lines.add("# " + line);
+        }
+        lines.add("# benchmark\tparam\tscore\terror\tunit");
+        for (Result result : results) {
+            lines.add(String.format(Locale.ROOT, "%s\t%s\t%.3f\t%.3f\tns/op",
+                result.name, result.param, result.score, result.error));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Compares results with a baseline file written by write
+     * @param tolerance Allowed slowdown as a fraction (0.25 = 25% slower)
+     * @return Number of regressions: cases slower than the baseline by more
+     *         than the tolerance and than both runs' error bars
+     */
+    public static int compare(Path baselineFile, List<Result> results, double tolerance) throws IOException {
+        Map<String, double[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineFile, StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            baseline.put(fields[0] + "\t" + fields[1],
+                new double[] {Double.parseDouble(fields[2]), Double.parseDouble(fields[3])});
+        }
+        
+        System.out.println();
+        System.out.println("Compared with " + baselineFile + " (tolerance " + Math.round(tolerance * 100) + "%):");
+        int regressions = 0;
+        for (Result result : results) {
+            double[] base = baseline.get(result.key());
+            if (base == null) {
+                System.out.printf("  ℹ %-44s %10s  no baseline%n", result.name, result.param);
+                continue;
+            }
+            double change = result.score / base[0] - 1;
+            boolean beyondNoise = Math.abs(result.score - base[0]) > result.error + base[1];
+            String mark = "  ";
+            if (change > tolerance && beyondNoise) {
+                mark = "✗ ";
+                regressions++;
+            } else if (change < -tolerance && beyondNoise) {
+                mark = "✓ ";
+            }
+            System.out.printf(Locale.ROOT, "  %s%-44s %10s %+8.1f%%%n", mark, result.name, result.param, change * 100);
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,342 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hammers a ConcurrentTaskManager from writer, reader and consumer threads at
+ * once and checks that it stays consistent.
+ *
+ * Each writer adds, edits, completes and removes its own tasks, so it knows
+ * what the final state of each must be, and tries to add other tasks under
+ * the ids of its queued ones, which must be turned away; a consumer takes
+ * tasks off the front of the queue meanwhile. Readers walk the queue and deadline ranges the
+ * whole time and check the relative order of tasks that are never edited,
+ * which must hold in every walk. Once all threads stop, every index and
+ * count is compared with the writers' expectations and the queue is drained
+ * to confirm its order.
+ *
+ * Build and run from the project directory:
+ *   javac -encoding UTF-8 -d out src/*.java bench/ConcurrentTaskManagerStress.java
+ *   java -cp out ConcurrentTaskManagerStress [writers] [readers] [seconds]
+ */
+public class ConcurrentTaskManagerStress {
+    
+    // Queue order on a task's current values
+    private static final Comparator<Task> QUEUE_ORDER = Comparator.comparingInt((Task task) -> -task.getPriority())
+        .thenComparing(Task::getDeadline).thenComparingLong(Task::getId);
+    
+    private static final LocalDateTime START = LocalDateTime.now().withNano(0);
+    
+    private final ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+    private final Set<Task> consumed = ConcurrentHashMap.newKeySet();
+    private final List<String> failures = new ArrayList<>();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private volatile boolean running = true;
+    
+    // Listener totals; listeners run under the write lock, one at a time
+    private long added;
+    private long removed;
+    
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        System.out.println("ConcurrentTaskManager stress test: " + writers + " writers, " + readers
+            + " readers, 1 consumer, " + seconds + " s (" + Runtime.getRuntime().availableProcessors() + " processors)");
+        
+        boolean passed = new ConcurrentTaskManagerStress().run(writers, readers, seconds);
+        System.exit(passed ? 0 : 1);
+    }
+    
+    private boolean run(int writerCount, int readerCount, int seconds) throws InterruptedException {
+        taskManager.addTaskListener(new TaskManager.TaskListener() {
+            @Override
+            public void taskAdded(Task task) {
+                added++;
+            }
+            
+            @Override
+            public void taskUpdated(Task task) {
+            }
+            
+            @Override
+            public void taskRemoved(Task task) {
+                removed++;
+            }
+            
+            @Override
+            public void tasksCleared() {
+                fail("unexpected clear");
+            }
+        });
+        
+        List<Writer> writers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < writerCount; i++) {
+            Writer writer = new Writer(i);
+            writers.add(writer);
+            threads.add(new Thread(() -> await(start, writer), "writer-" + i));
+        }
+        for (int i = 0; i < readerCount; i++) {
+            int seed = 1000 + i;
+            threads.add(new Thread(() -> await(start, () -> read(seed)), "reader-" + i));
+        }
+        threads.add(new Thread(() -> await(start, this::consume), "consumer"));
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        System.out.printf("%,d writes (%,.0f/s), %,d reads (%,.0f/s), %,d tasks consumed%n",
+            writes.get(), writes.get() / (double) seconds, reads.get(), reads.get() / (double) seconds, consumed.size());
+        checkFinalState(writers);
+        
+        if (failures.isEmpty()) {
+            System.out.println("✓ No inconsistencies found");
+            return true;
+        }
+        System.out.println("✗ " + failures.size() + " inconsistencies, first:");
+        for (String failure : failures.subList(0, Math.min(10, failures.size()))) {
+            System.out.println("  " + failure);
+        }
+        return false;
+    }
+    
+    // Adds, edits, completes and removes its own tasks, remembering which should remain
+    private final class Writer implements Runnable {
+        private final Random random;
+        private final int number;
+        private final List<Task> live = new ArrayList<>();
+        private final List<Task> all = new ArrayList<>();
+        // Tasks whose id was accepted for another task, and such tasks it could not remove
+        private final List<Task> clashed = new ArrayList<>();
+        private final List<Task> unremovedClashes = new ArrayList<>();
+        
+        Writer(int number) {
+            this.number = number;
+            this.random = new Random(number);
+        }
+        
+        @Override
+        public void run() {
+            int created = 0;
+            while (running) {
+                int action = random.nextInt(10);
+                if (action < 4 || live.size() < 100) {
+                    // Every fourth task is never edited, for the readers' order checks
+                    String title = (created % 4 == 0 ? "Fixed " : "Task ") + number + "-" + created++;
+                    Task task = new Task(title, 1 + random.nextInt(10), START.plusMinutes(random.nextInt(100000)));
+                    taskManager.addTask(task);
+                    live.add(task);
+                    all.add(task);
+                } else {
+                    int slot = random.nextInt(live.size());
+                    Task task = live.get(slot);
+                    boolean queued;
+                    if (isFixed(task) || action < 6) {
+                        queued = taskManager.removeTask(task);
+                        live.set(slot, live.get(live.size() - 1));
+                        live.remove(live.size() - 1);
+                    } else if (action < 8) {
+                        queued = taskManager.updateTask(task, task.getTitle(), 1 + random.nextInt(10),
+                            START.plusMinutes(random.nextInt(100000)));
+                    } else if (action < 9) {
+                        queued = taskManager.setTaskCompleted(task, !task.isCompleted());
+                    } else {
+                        queued = addClash(task);
+                    }
+                    // A task the consumer took is simply gone
+                    if (!queued && !consumed.contains(task)) {
+                        fail("write to queued task " + task.getTitle() + " failed");
+                    }
+                }
+                writes.incrementAndGet();
+            }
+        }
+        
+        // Another task under a queued task's id must be rejected, unless the
+        // consumer took the task first (checked once all threads stop)
+        private boolean addClash(Task task) {
+            Task clash = new Task(task.getId(), "Clash " + number, task.getPriority(), task.getDeadline());
+            try {
+                taskManager.addTask(clash);
+            } catch (IllegalArgumentException e) {
+                return true;
+            }
+            clashed.add(task);
+            if (!taskManager.removeTask(clash)) {
+                unremovedClashes.add(clash);
+            }
+            return true;
+        }
+    }
+    
+    // Walks the queue and deadline ranges, checking what must hold in any walk
+    private void read(int seed) {
+        Random random = new Random(seed);
+        while (running) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    checkFixedOrder(taskManager.getTopTasks(2000));
+                    break;
+                case 1:
+                    checkFixedOrder(taskManager.getTasksByPriority(3, 6));
+                    break;
+                case 2:
+                    LocalDateTime from = START.plusMinutes(random.nextInt(100000));
+                    List<Task> due = taskManager.getTasksDueBetween(from, true, from.plusHours(12), false, true);
+                    if (due.size() > taskManager.getTaskCount() + 100) {
+                        fail("deadline range larger than the queue");
+                    }
+                    break;
+                default:
+                    taskManager.peekNextTask();
+                    if (taskManager.countDueBetween(null, false, START.plusDays(1), false, true, true, 50) > 50) {
+                        fail("count over its cap");
+                    }
+                    break;
+            }
+            reads.incrementAndGet();
+        }
+    }
+    
+    // Takes tasks off the front of the queue, as a worker would
+    private void consume() {
+        while (running) {
+            Task task = taskManager.getNextTask();
+            if (task != null && !consumed.add(task)) {
+                fail("task " + task.getTitle() + " handed out twice");
+            }
+            Thread.yield();
+        }
+    }
+    
+    // Tasks that are never edited must appear once each, in queue order
+    private void checkFixedOrder(List<Task> tasks) {
+        Task previous = null;
+        for (Task task : tasks) {
+            if (!isFixed(task)) {
+                continue;
+            }
+            if (previous != null && QUEUE_ORDER.compare(previous, task) >= 0) {
+                fail("walk returned " + previous.getTitle() + " before " + task.getTitle());
+                return;
+            }
+            previous = task;
+        }
+    }
+    
+    private void checkFinalState(List<Writer> writers) {
+        Set<Task> expected = new HashSet<>();
+        int expectedPending = 0;
+        for (Writer writer : writers) {
+            for (Task task : writer.live) {
+                if (!consumed.contains(task)) {
+                    expected.add(task);
+                    expectedPending += task.isCompleted() ? 0 : 1;
+                }
+            }
+            for (Task task : writer.all) {
+                if (taskManager.containsTask(task) != expected.contains(task)) {
+                    fail(task.getTitle() + (expected.contains(task) ? " missing" : " still queued"));
+                }
+            }
+            for (Task task : writer.clashed) {
+                if (!consumed.contains(task)) {
+                    fail("another task accepted under the id of queued " + task.getTitle());
+                }
+            }
+            for (Task clash : writer.unremovedClashes) {
+                if (!consumed.contains(clash)) {
+                    fail("accepted " + clash.getTitle() + " was never queued");
+                }
+            }
+        }
+        
+        List<Task> queued = taskManager.getAllTasks();
+        if (queued.size() != expected.size() || !expected.containsAll(queued)) {
+            fail("queue holds " + queued.size() + " tasks, expected " + expected.size());
+        }
+        if (taskManager.getTaskCount() != expected.size() || added - removed != expected.size()) {
+            fail("counts: " + taskManager.getTaskCount() + " queued, " + (added - removed)
+                + " by listener, expected " + expected.size());
+        }
+        if (taskManager.getPendingCount() != expectedPending
+                || taskManager.getPendingTasks().size() != expectedPending
+                || taskManager.getCompletedTasks().size() != expected.size() - expectedPending) {
+            fail("pending count " + taskManager.getPendingCount() + ", expected " + expectedPending);
+        }
+        checkReAdd(queued);
+        checkSorted(queued, QUEUE_ORDER, "queue");
+        checkSorted(taskManager.getTasksDueBetween(null, false, null, false, true),
+            Comparator.comparing(Task::getDeadline).thenComparingLong(Task::getId), "deadline index");
+        
+        List<Task> drained = new ArrayList<>();
+        for (Task task = taskManager.getNextTask(); task != null; task = taskManager.getNextTask()) {
+            drained.add(task);
+        }
+        if (drained.size() != expected.size() || !taskManager.isEmpty()) {
+            fail("drained " + drained.size() + " tasks, expected " + expected.size());
+        }
+        checkSorted(drained, QUEUE_ORDER, "drain");
+    }
+    
+    // Adding a queued task again re-files it rather than queuing it twice
+    private void checkReAdd(List<Task> queued) {
+        if (queued.isEmpty()) {
+            return;
+        }
+        Task task = queued.get(queued.size() - 1);
+        task.setPriority(task.getPriority() % 10 + 1);
+        long addedBefore = added;
+        taskManager.addTask(task);
+        if (added != addedBefore || taskManager.getTaskCount() != queued.size() || !taskManager.containsTask(task)) {
+            fail("re-adding queued " + task.getTitle() + " did not re-file it");
+        }
+        if (taskManager.getTasksByPriority(task.getPriority(), task.getPriority()).indexOf(task) < 0) {
+            fail("re-added " + task.getTitle() + " not found under its new priority");
+        }
+        queued.sort(QUEUE_ORDER);
+    }
+    
+    private void checkSorted(List<Task> tasks, Comparator<Task> order, String what) {
+        for (int i = 1; i < tasks.size(); i++) {
+            if (order.compare(tasks.get(i - 1), tasks.get(i)) >= 0) {
+                fail(what + " out of order at " + i);
+                return;
+            }
+        }
+    }
+    
+    private static boolean isFixed(Task task) {
+        return task.getTitle().startsWith("Fixed ");
+    }
+    
+    private void await(CountDownLatch start, Runnable work) {
+        try {
+            start.await();
+            work.run();
+        } catch (Throwable e) {
+            fail(Thread.currentThread().getName() + " threw " + e);
+        }
+    }
+    
+    private synchronized void fail(String message) {
+        failures.add(message);
+    }
+}
@@ -0,0 +1,101 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-size latency histogram in the spirit of HdrHistogram: values are
+ * counted in buckets that double in width with each power of two, with 32
+ * sub-buckets per power, so any recorded value is known to within about 3%
+ * whatever its magnitude, in constant memory.
+ *
+ * Not thread-safe: give each recording thread its own histogram and merge
+ * them with add once recording stops.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    private long totalCount;
+    private long totalNanos;
+    private long maxNanos;
+    
+    /**
+     * Records one latency
+     * @param nanos Latency in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        totalCount++;
+        totalNanos += value;
+        maxNanos = Math.max(maxNanos, value);
+    }
+    
+    /**
+     * Adds every value recorded by another histogram to this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalNanos += other.totalNanos;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+    
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+    
+    public long getCount() {
+        return totalCount;
+    }
+    
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+    
+    public double getMeanNanos() {
+        return totalCount == 0 ? 0 : totalNanos / (double) totalCount;
+    }
+    
+    /**
+     * Gets the latency at a percentile, e.g. 99.9, as the middle of the
+     * bucket holding it (never above the largest recorded value)
+     */
+    public long getPercentileNanos(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(middleOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+    
+    // Values below 32 get a bucket each; above that, 32 buckets per power of two
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+    
+    private static long middleOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,632 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: fills a task queue with millions of generated tasks,
+ * then has several client threads issue a weighted mix of adds, edits,
+ * completions, deletes, filters and saves against it for a fixed time, and
+ * reports throughput and p50/p99/p99.9 latency for each kind of operation.
+ *
+ * Two targets can be driven:
+ * - confined (default): a TaskManager owned by one thread, as the UI's
+ *   TaskManager is owned by the EDT. Clients hand each operation to the
+ *   owner and wait for it, so latencies include the time spent queued
+ *   behind other clients' work, as a user's click waits behind a filter.
+ * - concurrent: a ConcurrentTaskManager called directly from every client.
+ *
+ * A save captures the tasks on the thread doing the operation and writes
+ * them on a separate writer thread, as AutosaveService does; the capture is
+ * the save's latency and the write is reported separately. A capture made
+ * while the previous write is still running is not written.
+ *
+ * Build and run from the project directory:
+ *   javac -encoding UTF-8 -d out src/*.java bench/WorkloadGenerator.java bench/LatencyHistogram.java bench/LoadTest.java
+ *   mkdir bench/work && cd bench/work
+ *   java -Xmx4g -cp ../../out LoadTest [options]
+ *
+ * Options:
+ *   --tasks N         tasks generated before the run (default 1000000;
+ *                     10000000 needs about -Xmx12g)
+ *   --threads N       client threads (default 4)
+ *   --seconds N       measured run time (default 30)
+ *   --warmup N        unmeasured run time first (default 5)
+ *   --mix SPEC        operation weights, e.g. add=20,edit=30,complete=20,delete=10,filter=19,save=1
+ *   --think-ms N      pause of each client between operations (default 0)
+ *   --target NAME     confined or concurrent (default confined)
+ *   --seed N          seed for the generated tasks and choices (default 42)
+ *
+ * StorageHandler always uses tasks.json in the working directory, so the
+ * test refuses to run where a tasks.json already exists.
+ */
+public class LoadTest {
+    
+    private enum Operation {
+        ADD, EDIT, COMPLETE, DELETE, FILTER, SAVE;
+        
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    private static final String DEFAULT_MIX = "add=20,edit=30,complete=20,delete=10,filter=19,save=1";
+    
+    private static final Path TASKS_FILE = Paths.get("tasks.json");
+    
+    // Written by operations so the JIT cannot drop their results
+    private static volatile Object sink;
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int taskCount = Integer.parseInt(options.getOrDefault("tasks", "1000000"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        long thinkMillis = Long.parseLong(options.getOrDefault("think-ms", "0"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        String targetName = options.getOrDefault("target", "confined");
+        
+        if (Files.exists(TASKS_FILE)) {
+            System.out.println("✗ tasks.json exists in " + Paths.get("").toAbsolutePath()
+                + "; run the load test from an empty directory");
+            System.exit(1);
+        }
+        
+        System.out.println("ℹ LoadTest " + LocalDateTime.now().withNano(0) + ", java "
+            + System.getProperty("java.version") + ", " + Runtime.getRuntime().availableProcessors()
+            + " processors, max heap " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB");
+        System.out.println("ℹ Target " + targetName + ", " + threads + " clients, mix " + mix
+            + (thinkMillis > 0 ? ", " + thinkMillis + " ms think time" : ""));
+        
+        long start = System.nanoTime();
+        WorkloadGenerator generator = new WorkloadGenerator(seed, LocalDateTime.now());
+        List<Task> tasks = generator.nextTasks(taskCount);
+        System.out.printf(Locale.ROOT, "✓ Generated %,d tasks in %.1f s%n", taskCount, seconds(System.nanoTime() - start));
+        printDistribution(tasks);
+        
+        Target target;
+        if (targetName.equals("confined")) {
+            target = new ConfinedTarget();
+        } else if (targetName.equals("concurrent")) {
+            target = new ConcurrentTarget();
+        } else {
+            throw new IllegalArgumentException("Unknown target: " + targetName);
+        }
+        start = System.nanoTime();
+        target.load(tasks);
+        tasks = null;
+        System.out.printf(Locale.ROOT, "✓ Loaded them into the %s target in %.1f s%n",
+            targetName, seconds(System.nanoTime() - start));
+        
+        try {
+            new LoadTest(target, mix, threads, thinkMillis, seed).run(warmupSeconds, seconds);
+        } finally {
+            target.close();
+            Files.deleteIfExists(TASKS_FILE);
+        }
+    }
+    
+    private final Target target;
+    private final Operation[] choices;
+    private final int clientCount;
+    private final long thinkMillis;
+    private final long seed;
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+    
+    private LoadTest(Target target, Map<Operation, Integer> mix, int clientCount, long thinkMillis, long seed) {
+        this.target = target;
+        this.clientCount = clientCount;
+        this.thinkMillis = thinkMillis;
+        this.seed = seed;
+        
+        // One slot per unit of weight, so a uniform pick follows the mix
+        List<Operation> slots = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                slots.add(weight.getKey());
+            }
+        }
+        this.choices = slots.toArray(new Operation[0]);
+    }
+    
+    private void run(int warmupSeconds, int seconds) throws Exception {
+        List<Client> clients = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        CountDownLatch finished = new CountDownLatch(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            Client client = new Client(i);
+            clients.add(client);
+            Thread thread = new Thread(() -> {
+                try {
+                    client.run();
+                } finally {
+                    finished.countDown();
+                }
+            }, "client-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+        
+        // StorageHandler reports every save; keep that out of the report
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        long measuredNanos;
+        try {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            console.println("ℹ Warming up for " + warmupSeconds + " s...");
+            Thread.sleep(warmupSeconds * 1000L);
+            target.resetWrites();
+            measuring = true;
+            long measureStart = System.nanoTime();
+            console.println("ℹ Measuring for " + seconds + " s...");
+            for (int elapsed = 0; elapsed < seconds; elapsed += 5) {
+                Thread.sleep(Math.min(5, seconds - elapsed) * 1000L);
+                long operations = 0;
+                for (Client client : clients) {
+                    operations += client.operations.get();
+                }
+                console.printf(Locale.ROOT, "  %3d s  %,12d operations  %,10d tasks%n",
+                    Math.min(elapsed + 5, seconds), operations, target.size());
+            }
+            measuring = false;
+            measuredNanos = System.nanoTime() - measureStart;
+            running = false;
+            if (!finished.await(60, TimeUnit.SECONDS)) {
+                console.println("⚠ Some clients did not stop within 60 s; reporting what was recorded");
+            }
+            target.awaitWrites();
+        } finally {
+            System.setOut(console);
+        }
+        
+        report(clients, measuredNanos);
+    }
+    
+    // Issues operations from the mix until the run ends, timing each one
+    private final class Client {
+        final WorkloadGenerator generator;
+        final Random random;
+        final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+        final AtomicLong operations = new AtomicLong();
+        long failures;
+        
+        Client(int number) {
+            this.generator = new WorkloadGenerator(seed + 1 + number, LocalDateTime.now());
+            this.random = generator.getRandom();
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyHistogram());
+            }
+        }
+        
+        void run() {
+            while (running) {
+                Operation operation = choices[random.nextInt(choices.length)];
+                boolean measured = measuring;
+                long start = System.nanoTime();
+                try {
+                    target.perform(operation, generator);
+                } catch (Exception e) {
+                    failures++;
+                    continue;
+                }
+                long nanos = System.nanoTime() - start;
+                if (measured && measuring) {
+                    latencies.get(operation).record(nanos);
+                    operations.incrementAndGet();
+                }
+                if (thinkMillis > 0) {
+                    try {
+                        Thread.sleep(thinkMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+    
+    private void report(List<Client> clients, long measuredNanos) {
+        Map<Operation, LatencyHistogram> totals = new EnumMap<>(Operation.class);
+        LatencyHistogram all = new LatencyHistogram();
+        long failures = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram total = new LatencyHistogram();
+            for (Client client : clients) {
+                total.add(client.latencies.get(operation));
+            }
+            totals.put(operation, total);
+            all.add(total);
+        }
+        for (Client client : clients) {
+            failures += client.failures;
+        }
+        
+        double elapsed = seconds(measuredNanos);
+        System.out.println();
+        System.out.printf("%-12s %12s %12s %10s %10s %10s %10s %10s%n",
+            "Operation", "Count", "Ops/s", "Mean", "p50", "p99", "p99.9", "Max");
+        for (Operation operation : Operation.values()) {
+            if (totals.get(operation).getCount() > 0) {
+                printRow(operation.label(), totals.get(operation), elapsed);
+            }
+        }
+        if (target.writes.getCount() > 0) {
+            printRow("save.write", target.writes, elapsed);
+        }
+        printRow("total", all, elapsed);
+        System.out.println();
+        System.out.println("ℹ Latencies are end-to-end in ms; save.write runs on the writer thread");
+        if (target.skippedWrites.get() > 0) {
+            System.out.println("ℹ " + target.skippedWrites.get() + " saves were not written: the previous write was still running");
+        }
+        if (failures > 0) {
+            System.out.println("⚠ " + failures + " operations threw and were not counted");
+        }
+        System.out.println("✓ " + target.size() + " tasks queued at the end");
+    }
+    
+    private static void printRow(String label, LatencyHistogram histogram, double elapsedSeconds) {
+        System.out.printf(Locale.ROOT, "%-12s %,12d %,12.0f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+            label, histogram.getCount(), histogram.getCount() / elapsedSeconds,
+            histogram.getMeanNanos() / 1e6,
+            histogram.getPercentileNanos(50) / 1e6,
+            histogram.getPercentileNanos(99) / 1e6,
+            histogram.getPercentileNanos(99.9) / 1e6,
+            histogram.getMaxNanos() / 1e6);
+    }
+    
+    /**
+     * The queue under load, and the save path shared by both targets
+     */
+    private abstract static class Target {
+        private final StorageHandler storageHandler = new StorageHandler();
+        private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final AtomicBoolean writing = new AtomicBoolean();
+        // Recorded only on the writer thread; read after awaitWrites
+        final LatencyHistogram writes = new LatencyHistogram();
+        final AtomicLong skippedWrites = new AtomicLong();
+        
+        abstract void load(List<Task> tasks);
+        
+        abstract int size();
+        
+        /**
+         * Performs one operation, returning once it has completed
+         */
+        abstract void perform(Operation operation, WorkloadGenerator generator) throws Exception;
+        
+        // Capture on the calling thread, write in the background
+        void save(List<Task> tasks) {
+            StorageHandler.Snapshot snapshot = storageHandler.captureSnapshot(tasks);
+            if (!writing.compareAndSet(false, true)) {
+                skippedWrites.incrementAndGet();
+                return;
+            }
+            writer.execute(() -> {
+                long start = System.nanoTime();
+                storageHandler.saveSnapshot(snapshot);
+                writes.record(System.nanoTime() - start);
+                writing.set(false);
+            });
+        }
+        
+        void resetWrites() throws Exception {
+            writer.submit(() -> {
+                writes.reset();
+                skippedWrites.set(0);
+            }).get();
+        }
+        
+        void awaitWrites() throws Exception {
+            writer.submit(() -> { }).get();
+        }
+        
+        void close() throws InterruptedException {
+            writer.shutdown();
+            writer.awaitTermination(60, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * A TaskManager confined to one owner thread, as in the UI; every
+     * operation runs there, in the order clients submitted them
+     */
+    private static final class ConfinedTarget extends Target {
+        private final TaskManager taskManager = new TaskManager();
+        private final ExecutorService owner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "owner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private volatile int size;
+        
+        @Override
+        void load(List<Task> tasks) {
+            for (Task task : tasks) {
+                taskManager.addTask(task);
+            }
+            size = taskManager.getTaskCount();
+        }
+        
+        @Override
+        int size() {
+            return size;
+        }
+        
+        @Override
+        void perform(Operation operation, WorkloadGenerator generator) throws Exception {
+            owner.submit(() -> {
+                apply(operation, generator);
+                size = taskManager.getTaskCount();
+                return null;
+            }).get();
+        }
+        
+        private void apply(Operation operation, WorkloadGenerator generator) {
+            Random random = generator.getRandom();
+            switch (operation) {
+                case ADD:
+                    taskManager.addTask(generator.nextTask());
+                    break;
+                case EDIT: {
+                    Task task = pick(random, false);
+                    if (task != null) {
+                        String title = random.nextInt(4) == 0 ? generator.nextTitle() : task.getTitle();
+                        taskManager.updateTask(task, title, generator.nextPriority(), generator.nextDeadline());
+                    }
+                    break;
+                }
+                case COMPLETE: {
+                    Task task = pick(random, true);
+                    if (task != null) {
+                        taskManager.setTaskCompleted(task, true);
+                    }
+                    break;
+                }
+                case DELETE: {
+                    Task task = pick(random, false);
+                    if (task != null) {
+                        taskManager.removeTask(task);
+                    }
+                    break;
+                }
+                case FILTER:
+                    sink = filter(random, generator);
+                    break;
+                case SAVE:
+                    save(taskManager.getAllTasks());
+                    break;
+            }
+        }
+        
+        // The UI's filter choices, or a title search as typed into the search box
+        private List<Task> filter(Random random, WorkloadGenerator generator) {
+            int filters = FilterUtils.getFilterOptions().length;
+            int choice = random.nextInt(filters + 2);
+            if (choice < filters) {
+                return FilterUtils.applySelectedFilter(taskManager, choice);
+            }
+            String query = generator.nextQuery();
+            return choice == filters ? FilterUtils.filterTasksByTitle(taskManager, query)
+                : FilterUtils.filterTasksByTitleFuzzy(taskManager, query);
+        }
+        
+        // A random queued task, preferring a pending one if asked
+        private Task pick(Random random, boolean pending) {
+            Task task = null;
+            for (int attempt = 0; attempt < 4 && taskManager.getTaskCount() > 0; attempt++) {
+                task = taskManager.getTaskAt(random.nextInt(taskManager.getTaskCount()));
+                if (!pending || !task.isCompleted()) {
+                    break;
+                }
+            }
+            return task;
+        }
+        
+        @Override
+        void close() throws InterruptedException {
+            owner.shutdown();
+            owner.awaitTermination(60, TimeUnit.SECONDS);
+            super.close();
+        }
+    }
+    
+    /**
+     * A ConcurrentTaskManager shared by all clients. Tasks are picked by
+     * probing random ids, as it has no positional access; filters without an
+     * index of their own scan a copy of the queue.
+     */
+    private static final class ConcurrentTarget extends Target {
+        private final ConcurrentTaskManager taskManager = new ConcurrentTaskManager();
+        private volatile long lowestId = Long.MAX_VALUE;
+        private final AtomicLong highestId = new AtomicLong();
+        
+        @Override
+        void load(List<Task> tasks) {
+            for (Task task : tasks) {
+                taskManager.addTask(task);
+                lowestId = Math.min(lowestId, task.getId());
+                highestId.accumulateAndGet(task.getId(), Math::max);
+            }
+        }
+        
+        @Override
+        int size() {
+            return taskManager.getTaskCount();
+        }
+        
+        @Override
+        void perform(Operation operation, WorkloadGenerator generator) {
+            Random random = generator.getRandom();
+            switch (operation) {
+                case ADD: {
+                    Task task = generator.nextTask();
+                    taskManager.addTask(task);
+                    highestId.accumulateAndGet(task.getId(), Math::max);
+                    break;
+                }
+                case EDIT: {
+                    Task task = pick(random, false);
+                    if (task != null) {
+                        String title = random.nextInt(4) == 0 ? generator.nextTitle() : task.getTitle();
+                        taskManager.updateTask(task, title, generator.nextPriority(), generator.nextDeadline());
+                    }
+                    break;
+                }
+                case COMPLETE: {
+                    Task task = pick(random, true);
+                    if (task != null) {
+                        taskManager.setTaskCompleted(task, true);
+                    }
+                    break;
+                }
+                case DELETE: {
+                    Task task = pick(random, false);
+                    if (task != null) {
+                        taskManager.removeTask(task);
+                    }
+                    break;
+                }
+                case FILTER:
+                    sink = filter(random, generator);
+                    break;
+                case SAVE:
+                    // Copies built from the immutable entries, so no task is
+                    // saved with a mix of old and new values
+                    save(taskManager.getAllTaskCopies());
+                    break;
+            }
+        }
+        
+        // The same choices as the confined target, from this queue's indexes
+        private List<Task> filter(Random random, WorkloadGenerator generator) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+            switch (random.nextInt(FilterUtils.getFilterOptions().length + 1)) {
+                case 0: return taskManager.getAllTasks();
+                case 1: return taskManager.getTasksDueBetween(startOfDay, true, startOfDay.plusDays(1), false, true);
+                case 2: return taskManager.getTasksByPriority(8, 10);
+                case 3: return taskManager.getTasksByPriority(5, 7);
+                case 4: return taskManager.getTasksByPriority(1, 4);
+                case 5: return taskManager.getCompletedTasks();
+                case 6: return taskManager.getPendingTasks();
+                case 7: return taskManager.getTasksDueBetween(null, false, now, false, false);
+                case 8: return taskManager.getTasksDueBetween(now.minusDays(1), false, now.plusDays(7), false, true);
+                case 9: return taskManager.getTasksDueBetween(now, false, now.plusHours(1), false, false);
+                case 10: return taskManager.getTasksDueBetween(now, false, now.plusHours(24), false, false);
+                default: return FilterUtils.filterTasksByTitle(taskManager.getAllTasks(), generator.nextQuery());
+            }
+        }
+        
+        // A random queued task, preferring a pending one if asked
+        private Task pick(Random random, boolean pending) {
+            Task found = null;
+            long span = highestId.get() - lowestId + 1;
+            for (int attempt = 0; attempt < 16; attempt++) {
+                Task task = taskManager.findById(lowestId + (long) (random.nextDouble() * span));
+                if (task != null) {
+                    found = task;
+                    if (!pending || !task.isCompleted()) {
+                        break;
+                    }
+                }
+            }
+            return found;
+        }
+    }
+    
+    private static void printDistribution(List<Task> tasks) {
+        int[] byPriority = new int[11];
+        int completed = 0;
+        int overdue = 0;
+        int dueThisWeek = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (Task task : tasks) {
+            byPriority[task.getPriority()]++;
+            completed += task.isCompleted() ? 1 : 0;
+            if (task.getDeadline().isBefore(now)) {
+                overdue += task.isCompleted() ? 0 : 1;
+            } else if (task.getDeadline().isBefore(now.plusDays(7))) {
+                dueThisWeek++;
+            }
+        }
+        StringBuilder priorities = new StringBuilder();
+        for (int priority = 1; priority <= 10; priority++) {
+            priorities.append(priority == 1 ? "" : " ")
+                .append(String.format(Locale.ROOT, "%d:%.0f%%", priority, 100.0 * byPriority[priority] / tasks.size()));
+        }
+        System.out.printf(Locale.ROOT, "ℹ Priorities %s; %.0f%% completed, %.0f%% overdue, %.0f%% due within a week%n",
+            priorities, 100.0 * completed / tasks.size(), 100.0 * overdue / tasks.size(), 100.0 * dueThisWeek / tasks.size());
+    }
+    
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+    
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : spec.split(",")) {
+            String[] weight = part.trim().split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Mix entries look like add=20: " + part);
+            }
+            Operation operation = Operation.valueOf(weight[0].trim().toUpperCase(Locale.ROOT));
+            int value = Integer.parseInt(weight[1].trim());
+            if (value < 0) {
+                throw new IllegalArgumentException("Mix weights cannot be negative: " + part);
+            }
+            mix.put(operation, value);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix has no operations: " + spec);
+        }
+        return mix;
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+}
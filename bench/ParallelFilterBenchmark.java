@@ -0,0 +1,88 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares sequential and parallel filtering over growing task lists to find
+ * the size at which the parallel path starts to pay off; use the result to
+ * tune FilterUtils.DEFAULT_PARALLEL_THRESHOLD for the target machine.
+ *
+ * Build and run from the project directory:
+ *   javac -encoding UTF-8 -d out src/*.java bench/ParallelFilterBenchmark.java
+ *   java -cp out ParallelFilterBenchmark [maxTasks]
+ *
+ * The common pool size can be changed with
+ * -Djava.util.concurrent.ForkJoinPool.common.parallelism=<threads>.
+ */
+public class ParallelFilterBenchmark {
+    
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    
+    public static void main(String[] args) {
+        int maxTasks = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        System.out.println("Parallel filtering benchmark (" + Runtime.getRuntime().availableProcessors()
+            + " processors, common pool parallelism " + parallelism + ")");
+        System.out.println("Filters: pending, high priority, this week, title contains \"report\"");
+        System.out.printf("%10s %14s %14s %9s%n", "tasks", "sequential ms", "parallel ms", "speedup");
+        
+        List<Task> allTasks = generateTasks(maxTasks);
+        FilterUtils.TaskFilter[] filters = {
+            FilterUtils.Filters.PENDING,
+            FilterUtils.Filters.HIGH_PRIORITY,
+            FilterUtils.Filters.THIS_WEEK,
+            FilterUtils.Filters.titleContains("report")
+        };
+        
+        int crossover = -1;
+        for (int size = 1000; size <= maxTasks; size *= 2) {
+            List<Task> tasks = allTasks.subList(0, size);
+            // Split into about four chunks per worker regardless of size
+            int threshold = Math.max(1, size / (parallelism * 4));
+            
+            double sequential = measure(() -> FilterUtils.applyMultipleFilters(tasks, filters));
+            double parallel = measure(() -> FilterUtils.applyMultipleFiltersParallel(tasks, threshold, filters));
+            double speedup = sequential / parallel;
+            System.out.printf("%10d %14.3f %14.3f %8.2fx%n", size, sequential, parallel, speedup);
+            
+            if (speedup > 1.1 && crossover < 0) {
+                crossover = size;
+            } else if (speedup <= 1.0) {
+                crossover = -1;
+            }
+        }
+        
+        if (crossover > 0) {
+            System.out.println("✓ Parallel filtering wins from about " + crossover + " tasks");
+        } else {
+            System.out.println("ℹ Parallel filtering did not win at any size on this machine");
+        }
+    }
+    
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+    }
+    
+    private static List<Task> generateTasks(int count) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = (i % 5 == 0 ? "Weekly report " : "Task ") + i;
+            Task task = new Task(title, random.nextInt(10) + 1, now.plusMinutes(random.nextInt(60 * 24 * 30) - 60 * 24 * 10));
+            task.setCompleted(random.nextInt(4) == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
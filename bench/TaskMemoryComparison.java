@@ -0,0 +1,114 @@
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the heap each way of holding tasks needs per task:
+ * - tasks: the Task objects alone, in an ArrayList
+ * - taskmanager: a TaskManager holding them, with its heap and indexes
+ * - taskstore: a TaskStore, which keeps tasks in primitive columns
+ *
+ * Each is filled with the same generated tasks (see WorkloadGenerator) in a
+ * JVM of its own and measured as the growth of the used heap after full
+ * collections, so the numbers include everything the structure keeps
+ * reachable.
+ *
+ * Build and run from the project directory:
+ *   javac -encoding UTF-8 -d out src/*.java bench/WorkloadGenerator.java bench/TaskMemoryComparison.java
+ *   java -Xmx12g -cp out TaskMemoryComparison [tasks] [tasks|taskmanager|taskstore ...]
+ *
+ * The default is 10000000 tasks in all three; a TaskManager of that size
+ * needs over 5 GB, so on a smaller machine measure it at a lower count
+ * (its cost per task hardly changes with size).
+ */
+public class TaskMemoryComparison {
+    
+    private static final long SEED = 42;
+    
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        List<String> kinds = args.length > 1 ? Arrays.asList(args).subList(1, args.length)
+            : Arrays.asList("tasks", "taskmanager", "taskstore");
+        if (kinds.size() == 1) {
+            long bytes = measure(kinds.get(0), count, LocalDateTime.now());
+            System.out.printf(Locale.ROOT, "%-12s %,14.1f %,12.1f%n",
+                kinds.get(0), bytes / (1024.0 * 1024.0), bytes / (double) count);
+            return;
+        }
+        
+        System.out.printf(Locale.ROOT, "ℹ %,d tasks, java %s, max heap %,d MB%n",
+            count, System.getProperty("java.version"), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        System.out.printf("%-12s %14s %12s%n", "Holder", "Heap (MB)", "Bytes/task");
+        // One JVM per holder: garbage a holder leaves behind skews the next one's baseline
+        for (String kind : kinds) {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                TaskMemoryComparison.class.getName(), String.valueOf(count), kind));
+            int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exitCode != 0) {
+                System.out.println("✗ Measuring " + kind + " failed (exit code " + exitCode + ")");
+            }
+        }
+    }
+    
+    // In a method of its own, so nothing of one holder is left reachable when the next is measured
+    private static long measure(String kind, int count, LocalDateTime start) {
+        long before = usedHeap();
+        Object holder = fill(kind, count, new WorkloadGenerator(SEED, start));
+        long bytes = usedHeap() - before;
+        // Keep the holder reachable until it has been measured
+        if (holder.hashCode() == 42) {
+            System.out.print("");
+        }
+        return bytes;
+    }
+    
+    private static Object fill(String kind, int count, WorkloadGenerator generator) {
+        switch (kind) {
+            case "tasks": {
+                List<Task> tasks = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    tasks.add(generator.nextTask());
+                }
+                return tasks;
+            }
+            case "taskmanager": {
+                TaskManager taskManager = new TaskManager();
+                for (int i = 0; i < count; i++) {
+                    taskManager.addTask(generator.nextTask());
+                }
+                return taskManager;
+            }
+            case "taskstore": {
+                TaskStore taskStore = new TaskStore(count);
+                for (int i = 0; i < count; i++) {
+                    taskStore.addTask(generator.nextTask());
+                }
+                return taskStore;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown holder: " + kind + " (tasks, taskmanager or taskstore)");
+        }
+    }
+    
+    // Used heap once collections stop freeing anything
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,351 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Benchmarks for the hot paths: TaskManager queue operations, every
+ * FilterUtils filter on both the list and the indexed TaskManager paths,
+ * and StorageHandler save/load in both snapshot formats.
+ *
+ * The same benchmarks run under JMH in the benchmarks module (see
+ * RunBenchmarks there); this harness is the fallback where Maven is not
+ * available, and reports under the same names. Its timings differ from
+ * JMH's, so it is compared with bench/fallback-baseline-results.tsv.
+ *
+ * Run with run-benchmarks.bat, or from the project directory:
+ *   javac -encoding UTF-8 -d out src/*.java bench/BenchmarkRunner.java bench/TaskSchedulerBenchmarks.java
+ *   mkdir bench/work && cd bench/work
+ *   java -Xmx4g -cp ../../out TaskSchedulerBenchmarks [options]
+ *
+ * Options:
+ *   --include REGEX     only cases whose "name param" matches
+ *   --sizes N,N,...     task counts (default 1000,10000,100000,1000000;
+ *                       10000000 needs about -Xmx12g)
+ *   --quick             shorter warmup and measurement, for a rough check
+ *   --out FILE          write results as tab-separated values
+ *   --baseline FILE     compare with earlier results; exits with 1 on a regression
+ *   --tolerance F       allowed slowdown before a regression (default 0.25)
+ *
+ * StorageHandler always uses tasks.json in the working directory, so the
+ * storage cases refuse to run where a tasks.json already exists.
+ */
+public class TaskSchedulerBenchmarks {
+    
+    private static final List<Integer> DEFAULT_SIZES = Arrays.asList(1000, 10000, 100000, 1000000);
+    
+    // Queue operations timed per operation on a batch of this many
+    private static final int MUTATION_BATCH = 1000;
+    
+    private static final Path TASKS_FILE = Paths.get("tasks.json");
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<Integer> sizes = options.containsKey("sizes") ? parseSizes(options.get("sizes")) : DEFAULT_SIZES;
+        
+        BenchmarkRunner runner = new BenchmarkRunner();
+        if (options.containsKey("quick")) {
+            runner.setTimes(300, 700, 3);
+        }
+        if (options.containsKey("include")) {
+            runner.setInclude(options.get("include"));
+        }
+        
+        boolean storage = !Files.exists(TASKS_FILE);
+        if (!storage) {
+            System.out.println("⚠ tasks.json exists in " + Paths.get("").toAbsolutePath()
+                + "; skipping storage benchmarks (run from an empty directory)");
+        }
+        for (int size : sizes) {
+            Workload workload = new Workload(size);
+            addTaskManagerCases(runner, workload);
+            addFilterCases(runner, workload);
+            if (storage) {
+                addStorageCases(runner, workload);
+            }
+        }
+        
+        List<String> header = Arrays.asList(
+            "TaskSchedulerBenchmarks " + LocalDateTime.now().withNano(0),
+            "java " + System.getProperty("java.version") + " (" + System.getProperty("java.vm.name") + ")",
+            System.getProperty("os.name") + " " + System.getProperty("os.arch") + ", "
+                + Runtime.getRuntime().availableProcessors() + " processors, max heap "
+                + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB");
+        for (String line : header) {
+            System.out.println("ℹ " + line);
+        }
+        
+        List<BenchmarkRunner.Result> results;
+        try {
+            results = runner.run();
+        } finally {
+            if (storage) {
+                Files.deleteIfExists(TASKS_FILE);
+            }
+        }
+        
+        if (options.containsKey("out")) {
+            BenchmarkRunner.write(Paths.get(options.get("out")), header, results);
+            System.out.println("✓ Results written to " + options.get("out"));
+        }
+        if (options.containsKey("baseline")) {
+            double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.25"));
+            int regressions = BenchmarkRunner.compare(Paths.get(options.get("baseline")), results, tolerance);
+            if (regressions > 0) {
+                System.out.println("✗ " + regressions + " regressions");
+                System.exit(1);
+            }
+            System.out.println("✓ No regressions");
+        }
+    }
+    
+    /**
+     * Tasks and a queue of one size, built on first use and shared by that
+     * size's cases; each case leaves the queue as it found it
+     */
+    private static final class Workload {
+        final int size;
+        private List<Task> tasks;
+        private TaskManager taskManager;
+        
+        Workload(int size) {
+            this.size = size;
+        }
+        
+        List<Task> tasks() {
+            if (tasks == null) {
+                tasks = generateTasks(size, 0);
+            }
+            return tasks;
+        }
+        
+        TaskManager taskManager() {
+            if (taskManager == null) {
+                taskManager = filled(tasks());
+            }
+            return taskManager;
+        }
+    }
+    
+    private static void addTaskManagerCases(BenchmarkRunner runner, Workload workload) {
+        int size = workload.size;
+        
+        // Building a queue of the given size from empty, timed per task
+        runner.add("TaskManager.build", size, size, () -> {
+            List<Task> tasks = workload.tasks();
+            return () -> BenchmarkRunner.consume(filled(tasks));
+        });
+        
+        // The rest time a batch of operations on a queue of the given size;
+        // the untimed setup undoes the previous batch, as does the teardown
+        // after the last one
+        int batch = Math.min(size, MUTATION_BATCH);
+        List<Task> extra = generateTasks(batch, size);
+        Runnable removeExtra = () -> {
+            for (Task task : extra) {
+                workload.taskManager().removeTask(task);
+            }
+        };
+        runner.addWithFreshState("TaskManager.addTask", size, batch, () -> {
+            TaskManager taskManager = workload.taskManager();
+            removeExtra.run();
+            return () -> {
+                for (Task task : extra) {
+                    taskManager.addTask(task);
+                }
+            };
+        }, removeExtra);
+        
+        List<Task> polled = new ArrayList<>(batch);
+        Runnable restorePolled = () -> {
+            for (Task task : polled) {
+                workload.taskManager().addTask(task);
+            }
+            polled.clear();
+        };
+        runner.addWithFreshState("TaskManager.getNextTask", size, batch, () -> {
+            TaskManager taskManager = workload.taskManager();
+            restorePolled.run();
+            return () -> {
+                for (int i = 0; i < batch; i++) {
+                    polled.add(taskManager.getNextTask());
+                }
+            };
+        }, restorePolled);
+        
+        List<Task> removed = new ArrayList<>(batch);
+        Runnable restoreRemoved = () -> {
+            for (Task task : removed) {
+                workload.taskManager().addTask(task);
+            }
+            removed.clear();
+        };
+        Random victims = new Random(size);
+        runner.addWithFreshState("TaskManager.removeTask", size, batch, () -> {
+            TaskManager taskManager = workload.taskManager();
+            restoreRemoved.run();
+            List<Task> tasks = workload.tasks();
+            List<Task> chosen = new ArrayList<>(batch);
+            while (chosen.size() < batch) {
+                Task task = tasks.get(victims.nextInt(tasks.size()));
+                if (!chosen.contains(task)) {
+                    chosen.add(task);
+                }
+            }
+            return () -> {
+                for (Task task : chosen) {
+                    taskManager.removeTask(task);
+                    removed.add(task);
+                }
+            };
+        }, restoreRemoved);
+        runner.add("TaskManager.updateTask", size, batch, () -> {
+            TaskManager taskManager = workload.taskManager();
+            List<Task> tasks = workload.tasks();
+            Random random = new Random(size);
+            return () -> {
+                for (int i = 0; i < batch; i++) {
+                    // Moves the task and back again, so the queue keeps its shape
+                    Task task = tasks.get(random.nextInt(tasks.size()));
+                    int priority = task.getPriority();
+                    taskManager.updateTask(task, task.getTitle(), 11 - priority, task.getDeadline());
+                    taskManager.updateTask(task, task.getTitle(), priority, task.getDeadline());
+                }
+            };
+        });
+        runner.add("TaskManager.peekNextTask", size, batch, () -> {
+            TaskManager taskManager = workload.taskManager();
+            return () -> {
+                for (int i = 0; i < batch; i++) {
+                    BenchmarkRunner.consume(taskManager.peekNextTask());
+                }
+            };
+        });
+    }
+    
+    private static void addFilterCases(BenchmarkRunner runner, Workload workload) {
+        int size = workload.size;
+        Map<String, Function<List<Task>, List<Task>>> listFilters = new LinkedHashMap<>();
+        listFilters.put("today", FilterUtils::filterTodaysTasks);
+        listFilters.put("highPriority", FilterUtils::filterHighPriorityTasks);
+        listFilters.put("mediumPriority", FilterUtils::filterMediumPriorityTasks);
+        listFilters.put("lowPriority", FilterUtils::filterLowPriorityTasks);
+        listFilters.put("completed", FilterUtils::filterCompletedTasks);
+        listFilters.put("pending", FilterUtils::filterPendingTasks);
+        listFilters.put("overdue", FilterUtils::filterOverdueTasks);
+        listFilters.put("dueWithin24Hours", list -> FilterUtils.filterTasksDueWithinHours(list, 24));
+        listFilters.put("thisWeek", FilterUtils::filterThisWeeksTasks);
+        listFilters.put("title", list -> FilterUtils.filterTasksByTitle(list, "report 12"));
+        listFilters.put("combined", list -> FilterUtils.applyMultipleFilters(list, FilterUtils.Filters.PENDING,
+            FilterUtils.Filters.HIGH_PRIORITY, FilterUtils.Filters.THIS_WEEK));
+        listFilters.put("combinedParallel", list -> FilterUtils.applyMultipleFiltersParallel(list,
+            FilterUtils.DEFAULT_PARALLEL_THRESHOLD, FilterUtils.Filters.PENDING,
+            FilterUtils.Filters.HIGH_PRIORITY, FilterUtils.Filters.THIS_WEEK));
+        for (Map.Entry<String, Function<List<Task>, List<Task>>> filter : listFilters.entrySet()) {
+            runner.add("FilterUtils.list." + filter.getKey(), size, 1, () -> {
+                List<Task> tasks = workload.tasks();
+                return () -> BenchmarkRunner.consume(filter.getValue().apply(tasks));
+            });
+        }
+        
+        Map<String, Function<TaskManager, List<Task>>> indexFilters = new LinkedHashMap<>();
+        indexFilters.put("today", FilterUtils::filterTodaysTasks);
+        indexFilters.put("highPriority", FilterUtils::filterHighPriorityTasks);
+        indexFilters.put("mediumPriority", FilterUtils::filterMediumPriorityTasks);
+        indexFilters.put("lowPriority", FilterUtils::filterLowPriorityTasks);
+        indexFilters.put("completed", FilterUtils::filterCompletedTasks);
+        indexFilters.put("pending", FilterUtils::filterPendingTasks);
+        indexFilters.put("overdue", FilterUtils::filterOverdueTasks);
+        indexFilters.put("dueWithin24Hours", taskManager -> FilterUtils.filterTasksDueWithinHours(taskManager, 24));
+        indexFilters.put("thisWeek", FilterUtils::filterThisWeeksTasks);
+        indexFilters.put("title", taskManager -> FilterUtils.filterTasksByTitle(taskManager, "report 12"));
+        indexFilters.put("titleFuzzy", taskManager -> FilterUtils.filterTasksByTitleFuzzy(taskManager, "wekly reprt"));
+        indexFilters.put("combined", taskManager -> FilterUtils.applyMultipleFilters(taskManager,
+            FilterUtils.Filters.PENDING, FilterUtils.Filters.HIGH_PRIORITY, FilterUtils.Filters.THIS_WEEK));
+        for (Map.Entry<String, Function<TaskManager, List<Task>>> filter : indexFilters.entrySet()) {
+            runner.add("FilterUtils.index." + filter.getKey(), size, 1, () -> {
+                TaskManager taskManager = workload.taskManager();
+                return () -> BenchmarkRunner.consume(filter.getValue().apply(taskManager));
+            });
+        }
+    }
+    
+    private static void addStorageCases(BenchmarkRunner runner, Workload workload) {
+        int size = workload.size;
+        for (StorageHandler.SnapshotFormat format : StorageHandler.SnapshotFormat.values()) {
+            String param = size + "/" + format.name().toLowerCase();
+            runner.add("StorageHandler.saveTasks", param, size, () -> {
+                StorageHandler storage = storage(format);
+                List<Task> tasks = workload.tasks();
+                return () -> storage.saveTasks(tasks);
+            });
+            runner.add("StorageHandler.loadTasks", param, size, () -> {
+                StorageHandler storage = storage(format);
+                storage.saveTasks(workload.tasks());
+                return () -> BenchmarkRunner.consume(storage.loadTasks());
+            });
+        }
+    }
+    
+    private static StorageHandler storage(StorageHandler.SnapshotFormat format) {
+        StorageHandler storage = new StorageHandler();
+        storage.setSnapshotFormat(format);
+        return storage;
+    }
+    
+    private static TaskManager filled(List<Task> tasks) {
+        TaskManager taskManager = new TaskManager();
+        for (Task task : tasks) {
+            taskManager.addTask(task);
+        }
+        return taskManager;
+    }
+    
+    // Same mix as ParallelFilterBenchmark: a fifth are weekly reports, deadlines
+    // spread from 10 days ago to 20 days ahead, a quarter completed
+    private static List<Task> generateTasks(int count, int firstNumber) {
+        Random random = new Random(42 + firstNumber);
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = firstNumber; i < firstNumber + count; i++) {
+            String title = (i % 5 == 0 ? "Weekly report " : "Task ") + i;
+            Task task = new Task(title, random.nextInt(10) + 1, now.plusMinutes(random.nextInt(60 * 24 * 30) - 60 * 24 * 10));
+            task.setCompleted(random.nextInt(4) == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (name.equals("quick")) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+        }
+        return options;
+    }
+    
+    private static List<Integer> parseSizes(String sizes) {
+        List<Integer> result = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            result.add(Integer.parseInt(size.trim()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates tasks that look like a real backlog rather than uniform noise,
+ * for load tests and benchmarks:
+ * - priorities cluster around 5 and thin out towards both ends
+ * - about a tenth of deadlines lie in the past two weeks, half in the coming
+ *   week, and the rest spread over the year with a long tail
+ * - most deadlines fall on a working day at a round working-hours time
+ * - overdue tasks are mostly completed, future ones mostly pending
+ * - titles are built from a few hundred common words, and some carry a
+ *   ticket reference, so the title index sees realistic word frequencies
+ * The same seed always generates the same tasks relative to the start time.
+ */
+public class WorkloadGenerator {
+    
+    // Relative weight of priorities 1-10
+    private static final int[] PRIORITY_WEIGHTS = {4, 6, 10, 14, 20, 16, 12, 9, 6, 3};
+    
+    private static final String[] VERBS = {
+        "Review", "Update", "Prepare", "Call", "Email", "Fix", "Plan", "Submit", "Schedule", "Draft",
+        "Test", "Deploy", "Renew", "Pay", "Book", "Order", "Clean", "Organize", "Write", "Check",
+        "Finish", "Send", "Follow up on", "Read", "Backup", "Refactor", "Document", "Migrate", "Approve", "Cancel"
+    };
+    private static final String[] OBJECTS = {
+        "quarterly report", "budget", "invoice", "dentist appointment", "team meeting", "release notes",
+        "weekly report", "project plan", "insurance", "car service", "tax return", "presentation slides",
+        "client proposal", "database backup", "server certificates", "expense claims", "onboarding docs",
+        "sprint retro", "design review", "performance review", "grocery list", "flight tickets",
+        "hotel booking", "library books", "gym membership", "phone bill", "rent", "birthday gift",
+        "conference talk", "code review", "security patch", "user survey", "marketing email", "roadmap",
+        "contract", "meeting notes", "vendor quote", "training plan", "backlog", "test plan"
+    };
+    private static final String[] QUALIFIERS = {
+        "for Alice", "for Bob", "with the team", "before Friday", "for the client", "for Q3", "for Q4",
+        "(urgent)", "again", "draft 2", "for marketing", "for finance", "for the board", "at home", "online"
+    };
+    private static final String[] PROJECTS = {"OPS", "WEB", "APP", "FIN", "HR", "DATA"};
+    
+    private final Random random;
+    private final LocalDateTime start;
+    private final int prioritySum;
+    
+    /**
+     * @param seed Seed for every random choice
+     * @param start Time the deadlines are spread around, normally now
+     */
+    public WorkloadGenerator(long seed, LocalDateTime start) {
+        this.random = new Random(seed);
+        this.start = start.withSecond(0).withNano(0);
+        int sum = 0;
+        for (int weight : PRIORITY_WEIGHTS) {
+            sum += weight;
+        }
+        this.prioritySum = sum;
+    }
+    
+    /**
+     * Generates a new task with a fresh id
+     */
+    public Task nextTask() {
+        LocalDateTime deadline = nextDeadline();
+        Task task = new Task(nextTitle(), nextPriority(), deadline);
+        // Tasks already due were mostly done; future ones mostly not
+        boolean overdue = deadline.isBefore(start);
+        task.setCompleted(random.nextInt(100) < (overdue ? 60 : 10));
+        return task;
+    }
+    
+    public List<Task> nextTasks(int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(nextTask());
+        }
+        return tasks;
+    }
+    
+    public int nextPriority() {
+        int pick = random.nextInt(prioritySum);
+        for (int i = 0; i < PRIORITY_WEIGHTS.length; i++) {
+            pick -= PRIORITY_WEIGHTS[i];
+            if (pick < 0) {
+                return i + 1;
+            }
+        }
+        return PRIORITY_WEIGHTS.length;
+    }
+    
+    public LocalDateTime nextDeadline() {
+        int bucket = random.nextInt(100);
+        long minutes;
+        if (bucket < 10) {
+            minutes = -1 - random.nextInt(14 * 24 * 60); // Past two weeks
+        } else if (bucket < 60) {
+            minutes = random.nextInt(7 * 24 * 60); // Coming week
+        } else if (bucket < 90) {
+            minutes = 7 * 24 * 60 + random.nextInt(53 * 24 * 60); // Up to two months
+        } else {
+            minutes = 60 * 24 * 60 + (long) (random.nextDouble() * random.nextDouble() * 305 * 24 * 60); // Long tail
+        }
+        LocalDateTime deadline = start.plusMinutes(minutes);
+        if (random.nextInt(100) < 70) {
+            // Round working-hours time on a working day
+            deadline = deadline.withHour(9 + random.nextInt(9)).withMinute(random.nextBoolean() ? 0 : 30);
+            DayOfWeek day = deadline.getDayOfWeek();
+            if (day == DayOfWeek.SATURDAY) {
+                deadline = deadline.plusDays(2);
+            } else if (day == DayOfWeek.SUNDAY) {
+                deadline = deadline.plusDays(1);
+            }
+        }
+        return deadline;
+    }
+    
+    public String nextTitle() {
+        StringBuilder title = new StringBuilder(48);
+        title.append(pick(VERBS)).append(' ').append(pick(OBJECTS));
+        if (random.nextInt(100) < 35) {
+            title.append(' ').append(pick(QUALIFIERS));
+        }
+        if (random.nextInt(100) < 30) {
+            title.append(" [").append(pick(PROJECTS)).append('-').append(1 + random.nextInt(20000)).append(']');
+        }
+        return title.toString();
+    }
+    
+    /**
+     * Gets a search query a user might type: one or two words of a title,
+     * sometimes shortened to a prefix, sometimes with a typo
+     */
+    public String nextQuery() {
+        String word = pick(OBJECTS).split(" ")[0];
+        int kind = random.nextInt(10);
+        if (kind < 3) {
+            return word.substring(0, Math.max(2, word.length() / 2));
+        }
+        if (kind < 5) {
+            // Drop one letter
+            int at = 1 + random.nextInt(word.length() - 1);
+            return word.substring(0, at) + word.substring(at + 1);
+        }
+        if (kind < 7) {
+            return pick(VERBS).toLowerCase().split(" ")[0] + " " + word;
+        }
+        return word;
+    }
+    
+    public Random getRandom() {
+        return random;
+    }
+    
+    private String pick(String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,136 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * The application calls timed by the JMH benchmarks in taskscheduler.benchmarks,
+ * as functions over plain Object references.
+ *
+ * JMH only generates code for benchmarks in a named package, and code in a
+ * named package cannot refer to the application's classes in the default
+ * package. The benchmarks therefore read these constants by name once, when
+ * they are loaded (see Operations); each call site then sees a single lambda
+ * the JIT inlines, so they time the same calls as bench/TaskSchedulerBenchmarks.
+ */
+public final class BenchmarkOperations {
+    
+    // Tasks numbered from the second argument on, as in bench/TaskSchedulerBenchmarks
+    public static final BiFunction<Integer, Integer, List<Object>> GENERATE_TASKS = BenchmarkOperations::generateTasks;
+    
+    public static final Supplier<Object> NEW_TASK_MANAGER = TaskManager::new;
+    
+    public static final BiConsumer<Object, Object> ADD_TASK =
+        (taskManager, task) -> ((TaskManager) taskManager).addTask((Task) task);
+    
+    public static final UnaryOperator<Object> GET_NEXT_TASK = taskManager -> ((TaskManager) taskManager).getNextTask();
+    
+    public static final BiConsumer<Object, Object> REMOVE_TASK =
+        (taskManager, task) -> ((TaskManager) taskManager).removeTask((Task) task);
+    
+    // Moves a queued task to the opposite priority and back, so the queue keeps its shape
+    public static final BiConsumer<Object, Object> UPDATE_TASK_AND_BACK = (queue, queued) -> {
+        TaskManager taskManager = (TaskManager) queue;
+        Task task = (Task) queued;
+        int priority = task.getPriority();
+        taskManager.updateTask(task, task.getTitle(), 11 - priority, task.getDeadline());
+        taskManager.updateTask(task, task.getTitle(), priority, task.getDeadline());
+    };
+    
+    public static final UnaryOperator<Object> PEEK_NEXT_TASK = taskManager -> ((TaskManager) taskManager).peekNextTask();
+    
+    // FilterUtils filters by name, on a task list and on a TaskManager's indexes
+    public static final Map<String, Function<List<Object>, List<Task>>> LIST_FILTERS;
+    public static final Map<String, Function<Object, List<Task>>> INDEX_FILTERS;
+    
+    static {
+        Map<String, Function<List<Task>, List<Task>>> listFilters = new LinkedHashMap<>();
+        listFilters.put("today", FilterUtils::filterTodaysTasks);
+        listFilters.put("highPriority", FilterUtils::filterHighPriorityTasks);
+        listFilters.put("mediumPriority", FilterUtils::filterMediumPriorityTasks);
+        listFilters.put("lowPriority", FilterUtils::filterLowPriorityTasks);
+        listFilters.put("completed", FilterUtils::filterCompletedTasks);
+        listFilters.put("pending", FilterUtils::filterPendingTasks);
+        listFilters.put("overdue", FilterUtils::filterOverdueTasks);
+        listFilters.put("dueWithin24Hours", list -> FilterUtils.filterTasksDueWithinHours(list, 24));
+        listFilters.put("thisWeek", FilterUtils::filterThisWeeksTasks);
+        listFilters.put("title", list -> FilterUtils.filterTasksByTitle(list, "report 12"));
+        listFilters.put("combined", list -> FilterUtils.applyMultipleFilters(list, FilterUtils.Filters.PENDING,
+            FilterUtils.Filters.HIGH_PRIORITY, FilterUtils.Filters.THIS_WEEK));
+        listFilters.put("combinedParallel", list -> FilterUtils.applyMultipleFiltersParallel(list,
+            FilterUtils.DEFAULT_PARALLEL_THRESHOLD, FilterUtils.Filters.PENDING,
+            FilterUtils.Filters.HIGH_PRIORITY, FilterUtils.Filters.THIS_WEEK));
+        Map<String, Function<List<Object>, List<Task>>> byName = new LinkedHashMap<>();
+        for (Map.Entry<String, Function<List<Task>, List<Task>>> filter : listFilters.entrySet()) {
+            Function<List<Task>, List<Task>> apply = filter.getValue();
+            byName.put(filter.getKey(), tasks -> apply.apply(asTasks(tasks)));
+        }
+        LIST_FILTERS = Collections.unmodifiableMap(byName);
+        
+        Map<String, Function<TaskManager, List<Task>>> indexFilters = new LinkedHashMap<>();
+        indexFilters.put("today", FilterUtils::filterTodaysTasks);
+        indexFilters.put("highPriority", FilterUtils::filterHighPriorityTasks);
+        indexFilters.put("mediumPriority", FilterUtils::filterMediumPriorityTasks);
+        indexFilters.put("lowPriority", FilterUtils::filterLowPriorityTasks);
+        indexFilters.put("completed", FilterUtils::filterCompletedTasks);
+        indexFilters.put("pending", FilterUtils::filterPendingTasks);
+        indexFilters.put("overdue", FilterUtils::filterOverdueTasks);
+        indexFilters.put("dueWithin24Hours", taskManager -> FilterUtils.filterTasksDueWithinHours(taskManager, 24));
+        indexFilters.put("thisWeek", FilterUtils::filterThisWeeksTasks);
+        indexFilters.put("title", taskManager -> FilterUtils.filterTasksByTitle(taskManager, "report 12"));
+        indexFilters.put("titleFuzzy", taskManager -> FilterUtils.filterTasksByTitleFuzzy(taskManager, "wekly reprt"));
+        indexFilters.put("combined", taskManager -> FilterUtils.applyMultipleFilters(taskManager,
+            FilterUtils.Filters.PENDING, FilterUtils.Filters.HIGH_PRIORITY, FilterUtils.Filters.THIS_WEEK));
+        Map<String, Function<Object, List<Task>>> byIndexName = new LinkedHashMap<>();
+        for (Map.Entry<String, Function<TaskManager, List<Task>>> filter : indexFilters.entrySet()) {
+            Function<TaskManager, List<Task>> apply = filter.getValue();
+            byIndexName.put(filter.getKey(), taskManager -> apply.apply((TaskManager) taskManager));
+        }
+        INDEX_FILTERS = Collections.unmodifiableMap(byIndexName);
+    }
+    
+    // A StorageHandler writing snapshots in the named format (json or binary)
+    public static final Function<String, Object> NEW_STORAGE = format -> {
+        StorageHandler storage = new StorageHandler();
+        storage.setSnapshotFormat(StorageHandler.SnapshotFormat.valueOf(format.toUpperCase(Locale.ROOT)));
+        return storage;
+    };
+    
+    public static final BiConsumer<Object, List<Object>> SAVE_TASKS =
+        (storage, tasks) -> ((StorageHandler) storage).saveTasks(asTasks(tasks));
+    
+    public static final UnaryOperator<Object> LOAD_TASKS = storage -> ((StorageHandler) storage).loadTasks();
+    
+    private BenchmarkOperations() {
+    }
+    
+    // Same mix as ParallelFilterBenchmark: a fifth are weekly reports, deadlines
+    // spread from 10 days ago to 20 days ahead, a quarter completed
+    private static List<Object> generateTasks(int count, int firstNumber) {
+        Random random = new Random(42 + firstNumber);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> tasks = new ArrayList<>(count);
+        for (int i = firstNumber; i < firstNumber + count; i++) {
+            String title = (i % 5 == 0 ? "Weekly report " : "Task ") + i;
+            Task task = new Task(title, random.nextInt(10) + 1, now.plusMinutes(random.nextInt(60 * 24 * 30) - 60 * 24 * 10));
+            task.setCompleted(random.nextInt(4) == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+    
+    // Every element is a Task made by generateTasks
+    @SuppressWarnings("unchecked")
+    private static List<Task> asTasks(List<Object> tasks) {
+        return (List<Task>) (List<?>) tasks;
+    }
+}
@@ -0,0 +1,96 @@
+package taskscheduler.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every FilterUtils filter, on a task list (list) and on a TaskManager's
+ * indexes (index), over the given number of tasks
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilterUtilsBenchmarks {
+    
+    private static final BiFunction<Integer, Integer, List<Object>> GENERATE_TASKS = Operations.get("GENERATE_TASKS");
+    private static final Supplier<Object> NEW_TASK_MANAGER = Operations.get("NEW_TASK_MANAGER");
+    private static final BiConsumer<Object, Object> ADD_TASK = Operations.get("ADD_TASK");
+    private static final Map<String, Function<List<Object>, List<?>>> LIST_FILTERS = Operations.get("LIST_FILTERS");
+    private static final Map<String, Function<Object, List<?>>> INDEX_FILTERS = Operations.get("INDEX_FILTERS");
+    
+    @State(Scope.Benchmark)
+    public static class Tasks {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+        
+        @Param({"today", "highPriority", "mediumPriority", "lowPriority", "completed", "pending", "overdue",
+            "dueWithin24Hours", "thisWeek", "title", "combined", "combinedParallel"})
+        public String filter;
+        
+        List<Object> tasks;
+        Function<List<Object>, List<?>> apply;
+        
+        @Setup
+        public void setUp() {
+            apply = LIST_FILTERS.get(filter);
+            if (apply == null) {
+                throw new IllegalArgumentException("Unknown list filter: " + filter);
+            }
+            tasks = GENERATE_TASKS.apply(size, 0);
+        }
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Queue {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+        
+        @Param({"today", "highPriority", "mediumPriority", "lowPriority", "completed", "pending", "overdue",
+            "dueWithin24Hours", "thisWeek", "title", "titleFuzzy", "combined"})
+        public String filter;
+        
+        Object taskManager;
+        Function<Object, List<?>> apply;
+        
+        @Setup
+        public void setUp() {
+            apply = INDEX_FILTERS.get(filter);
+            if (apply == null) {
+                throw new IllegalArgumentException("Unknown index filter: " + filter);
+            }
+            taskManager = NEW_TASK_MANAGER.get();
+            for (Object task : GENERATE_TASKS.apply(size, 0)) {
+                ADD_TASK.accept(taskManager, task);
+            }
+        }
+    }
+    
+    @Benchmark
+    public List<?> list(Tasks tasks) {
+        return tasks.apply.apply(tasks.tasks);
+    }
+    
+    @Benchmark
+    public List<?> index(Queue queue) {
+        return queue.apply.apply(queue.taskManager);
+    }
+}
@@ -0,0 +1,26 @@
+package taskscheduler.benchmarks;
+
+/**
+ * Looks up the application calls the benchmarks time. They are defined in
+ * BenchmarkOperations, in the default package with the application, which
+ * code in this package can only reach by name.
+ */
+final class Operations {
+    
+    private static final String HOLDER = "BenchmarkOperations";
+    
+    private Operations() {
+    }
+    
+    /**
+     * Reads one of BenchmarkOperations' constants, typed by the caller
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(String name) {
+        try {
+            return (T) Class.forName(HOLDER).getField(name).get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No benchmark operation " + HOLDER + "." + name, e);
+        }
+    }
+}
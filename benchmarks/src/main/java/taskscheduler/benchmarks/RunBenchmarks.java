@@ -0,0 +1,223 @@
+package taskscheduler.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Version;
+
+/**
+ * Runs the JMH benchmarks and reports their scores in nanoseconds per
+ * operation, under the names and in the file format bench/TaskSchedulerBenchmarks
+ * uses; bench/baseline-results.tsv holds a full run of these.
+ *
+ * Build and run from the project directory:
+ *   mvn -B package
+ *   mkdir bench/work && cd bench/work
+ *   java -jar ../../benchmarks/target/benchmarks.jar [options]
+ *
+ * Options:
+ *   --include REGEX     only benchmarks whose JMH name matches
+ *                       (e.g. FilterUtils, TaskManagerBenchmarks.addTask)
+ *   --sizes N,N,...     task counts (default 1000,10000,100000,1000000)
+ *   --quick             shorter warmup and measurement, for a rough check
+ *   --out FILE          write results as tab-separated values
+ *   --baseline FILE     compare with earlier results; exits with 1 on a regression
+ *   --tolerance F       allowed slowdown before a regression (default 0.25)
+ *
+ * StorageHandler always uses tasks.json in the working directory, so the
+ * storage benchmarks fail where a tasks.json already exists.
+ */
+public class RunBenchmarks {
+    
+    // Benchmarks timed per task of the queue or snapshot rather than per call
+    private static final List<String> PER_TASK = Arrays.asList(
+        "TaskManager.build", "StorageHandler.saveTasks", "StorageHandler.loadTasks");
+    
+    /**
+     * Score of one benchmark at one parameter value: mean nanoseconds per
+     * operation and the half-width of its 99.9% confidence interval
+     */
+    private static final class Result {
+        final String name;
+        final String param;
+        final double score;
+        final double error;
+        
+        Result(String name, String param, double score, double error) {
+            this.name = name;
+            this.param = param;
+            this.score = score;
+            this.error = error;
+        }
+        
+        String key() {
+            return name + "\t" + param;
+        }
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+            .include(options.getOrDefault("include", RunBenchmarks.class.getPackage().getName() + "\\."))
+            .shouldFailOnError(true);
+        if (options.containsKey("sizes")) {
+            builder.param("size", options.get("sizes").replace(" ", "").split(","));
+        }
+        if (options.containsKey("quick")) {
+            builder.warmupIterations(2).warmupTime(TimeValue.milliseconds(300))
+                .measurementIterations(3).measurementTime(TimeValue.milliseconds(700));
+        }
+        
+        List<String> header = Arrays.asList(
+            "TaskSchedulerBenchmarks (JMH " + Version.getPlainVersion() + ") " + LocalDateTime.now().withNano(0),
+            "java " + System.getProperty("java.version") + " (" + System.getProperty("java.vm.name") + ")",
+            System.getProperty("os.name") + " " + System.getProperty("os.arch") + ", "
+                + Runtime.getRuntime().availableProcessors() + " processors");
+        for (String line : header) {
+            System.out.println("ℹ " + line);
+        }
+        
+        List<Result> results = convert(new Runner(builder.build()).run());
+        System.out.println();
+        System.out.printf("%-44s %10s %14s %12s%n", "Benchmark", "Param", "Score", "Error");
+        for (Result result : results) {
+            System.out.printf(Locale.ROOT, "%-44s %10s %14.3f ± %10.3f  ns/op%n",
+                result.name, result.param, result.score, result.error);
+        }
+        
+        if (options.containsKey("out")) {
+            write(Paths.get(options.get("out")), header, results);
+            System.out.println("✓ Results written to " + options.get("out"));
+        }
+        if (options.containsKey("baseline")) {
+            double tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.25"));
+            int regressions = compare(Paths.get(options.get("baseline")), results, tolerance);
+            if (regressions > 0) {
+                System.out.println("✗ " + regressions + " regressions");
+                System.exit(1);
+            }
+            System.out.println("✓ No regressions");
+        }
+    }
+    
+    /**
+     * Names JMH's results as bench/TaskSchedulerBenchmarks does: the class
+     * without "Benchmarks", the method and any filter, with the size (and any
+     * snapshot format) as the parameter
+     */
+    private static List<Result> convert(Collection<RunResult> runResults) {
+        List<Result> results = new ArrayList<>();
+        for (RunResult runResult : runResults) {
+            BenchmarkParams params = runResult.getParams();
+            String benchmark = params.getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            String className = benchmark.substring(0, benchmark.lastIndexOf('.'));
+            String name = className.substring(className.lastIndexOf('.') + 1).replaceFirst("Benchmarks$", "")
+                + "." + method;
+            if (params.getParam("filter") != null) {
+                name += "." + params.getParam("filter");
+            }
+            int size = Integer.parseInt(params.getParam("size"));
+            String param = params.getParam("format") != null ? size + "/" + params.getParam("format") : String.valueOf(size);
+            
+            double operations = PER_TASK.contains(name) ? size : 1;
+            results.add(new Result(name, param, runResult.getPrimaryResult().getScore() / operations,
+                runResult.getPrimaryResult().getScoreError() / operations));
+        }
+        return results;
+    }
+    
+    /**
+     * Writes results as tab-separated lines: name, param, score, error, unit
+     * @param header Comment lines describing the run (machine, JVM)
+     */
+    private static void write(Path file, List<String> header, List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : header) {
+            lines.add("# " + line);
+        }
+        lines.add("# benchmark\tparam\tscore\terror\tunit");
+        for (Result result : results) {
+            lines.add(String.format(Locale.ROOT, "%s\t%s\t%.3f\t%.3f\tns/op",
+                result.name, result.param, result.score, result.error));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Compares results with a baseline file written by write
+     * @param tolerance Allowed slowdown as a fraction (0.25 = 25% slower)
+     * @return Number of regressions: benchmarks slower than the baseline by
+     *         more than the tolerance and than both runs' error bars
+     */
+    private static int compare(Path baselineFile, List<Result> results, double tolerance) throws IOException {
+        Map<String, double[]> baseline = new HashMap<>();
+        for (String line : Files.readAllLines(baselineFile, StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            baseline.put(fields[0] + "\t" + fields[1],
+                new double[] {Double.parseDouble(fields[2]), Double.parseDouble(fields[3])});
+        }
+        
+        System.out.println();
+        System.out.println("Compared with " + baselineFile + " (tolerance " + Math.round(tolerance * 100) + "%):");
+        int regressions = 0;
+        for (Result result : results) {
+            double[] base = baseline.get(result.key());
+            if (base == null) {
+                System.out.printf("  ℹ %-44s %10s  no baseline%n", result.name, result.param);
+                continue;
+            }
+            double change = result.score / base[0] - 1;
+            boolean beyondNoise = Math.abs(result.score - base[0]) > result.error + base[1];
+            String mark = "  ";
+            if (change > tolerance && beyondNoise) {
+                mark = "✗ ";
+                regressions++;
+            } else if (change < -tolerance && beyondNoise) {
+                mark = "✓ ";
+            }
+            System.out.printf(Locale.ROOT, "  %s%-44s %10s %+8.1f%%%n", mark, result.name, result.param, change * 100);
+        }
+        return regressions;
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if (name.equals("quick")) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,98 @@
+package taskscheduler.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StorageHandler saving and loading the given number of tasks in each
+ * snapshot format (RunBenchmarks reports both per task).
+ *
+ * StorageHandler always uses tasks.json in the working directory, so these
+ * refuse to run where a tasks.json already exists, and delete it afterwards.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StorageHandlerBenchmarks {
+    
+    private static final Path TASKS_FILE = Paths.get("tasks.json");
+    
+    private static final BiFunction<Integer, Integer, List<Object>> GENERATE_TASKS = Operations.get("GENERATE_TASKS");
+    private static final Function<String, Object> NEW_STORAGE = Operations.get("NEW_STORAGE");
+    private static final BiConsumer<Object, List<Object>> SAVE_TASKS = Operations.get("SAVE_TASKS");
+    private static final UnaryOperator<Object> LOAD_TASKS = Operations.get("LOAD_TASKS");
+    
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+    
+    @Param({"json", "binary"})
+    public String format;
+    
+    private List<Object> tasks;
+    private Object storage;
+    private PrintStream console;
+    
+    @Setup
+    public void setUp() {
+        if (Files.exists(TASKS_FILE)) {
+            throw new IllegalStateException("tasks.json exists in " + Paths.get("").toAbsolutePath()
+                + "; run the storage benchmarks from an empty directory");
+        }
+        // StorageHandler reports every save and load; keep that out of the results
+        console = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        tasks = GENERATE_TASKS.apply(size, 0);
+        storage = NEW_STORAGE.apply(format);
+        SAVE_TASKS.accept(storage, tasks);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(console);
+        Files.deleteIfExists(TASKS_FILE);
+    }
+    
+    @Benchmark
+    public void saveTasks() {
+        SAVE_TASKS.accept(storage, tasks);
+    }
+    
+    @Benchmark
+    public Object loadTasks() {
+        return LOAD_TASKS.apply(storage);
+    }
+}
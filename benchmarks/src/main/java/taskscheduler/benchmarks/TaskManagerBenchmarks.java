@@ -0,0 +1,198 @@
+package taskscheduler.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * TaskManager queue operations on a queue of the given size.
+ *
+ * build times filling a queue from empty (RunBenchmarks reports it per
+ * task), and peekNextTask a single call; the rest time a batch of BATCH
+ * operations. Operations that use their state up get a per-invocation
+ * setup that undoes the previous batch, outside the timed region.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TaskManagerBenchmarks {
+    
+    // Queue operations timed per operation on a batch of this many
+    static final int BATCH = 1000;
+    
+    private static final BiFunction<Integer, Integer, List<Object>> GENERATE_TASKS = Operations.get("GENERATE_TASKS");
+    private static final Supplier<Object> NEW_TASK_MANAGER = Operations.get("NEW_TASK_MANAGER");
+    private static final BiConsumer<Object, Object> ADD_TASK = Operations.get("ADD_TASK");
+    private static final UnaryOperator<Object> GET_NEXT_TASK = Operations.get("GET_NEXT_TASK");
+    private static final BiConsumer<Object, Object> REMOVE_TASK = Operations.get("REMOVE_TASK");
+    private static final BiConsumer<Object, Object> UPDATE_TASK_AND_BACK = Operations.get("UPDATE_TASK_AND_BACK");
+    private static final UnaryOperator<Object> PEEK_NEXT_TASK = Operations.get("PEEK_NEXT_TASK");
+    
+    /**
+     * Generated tasks and a queue holding them
+     */
+    @State(Scope.Benchmark)
+    public static class Queue {
+        @Param({"1000", "10000", "100000", "1000000"})
+        public int size;
+        
+        List<Object> tasks;
+        Object taskManager;
+        
+        @Setup
+        public void fill() {
+            if (size < BATCH) {
+                throw new IllegalArgumentException("Queue size must be at least " + BATCH + ", was " + size);
+            }
+            tasks = GENERATE_TASKS.apply(size, 0);
+            taskManager = filled(tasks);
+        }
+    }
+    
+    /**
+     * A batch of further tasks, taken out of the queue before each invocation
+     */
+    @State(Scope.Benchmark)
+    public static class Additions extends Queue {
+        List<Object> extra;
+        
+        @Setup
+        public void generateExtra() {
+            extra = GENERATE_TASKS.apply(BATCH, size);
+        }
+        
+        @Setup(Level.Invocation)
+        public void removeExtra() {
+            for (Object task : extra) {
+                REMOVE_TASK.accept(taskManager, task);
+            }
+        }
+    }
+    
+    /**
+     * The tasks the previous invocation took, put back before the next one
+     */
+    @State(Scope.Benchmark)
+    public static class Taken extends Queue {
+        final List<Object> taken = new ArrayList<>(BATCH);
+        
+        @Setup(Level.Invocation)
+        public void restore() {
+            for (Object task : taken) {
+                ADD_TASK.accept(taskManager, task);
+            }
+            taken.clear();
+        }
+    }
+    
+    /**
+     * Distinct queued tasks picked at random for each invocation to remove
+     */
+    @State(Scope.Benchmark)
+    public static class Removals extends Taken {
+        final List<Object> chosen = new ArrayList<>(BATCH);
+        Random random;
+        
+        @Setup
+        public void seed() {
+            random = new Random(size);
+        }
+        
+        @Setup(Level.Invocation)
+        public void choose() {
+            chosen.clear();
+            while (chosen.size() < BATCH) {
+                Object task = tasks.get(random.nextInt(tasks.size()));
+                if (!chosen.contains(task)) {
+                    chosen.add(task);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Picks the tasks updateTask moves
+     */
+    @State(Scope.Benchmark)
+    public static class Updates extends Queue {
+        Random random;
+        
+        @Setup
+        public void seed() {
+            random = new Random(size);
+        }
+    }
+    
+    @Benchmark
+    public Object build(Queue queue) {
+        return filled(queue.tasks);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addTask(Additions additions) {
+        for (Object task : additions.extra) {
+            ADD_TASK.accept(additions.taskManager, task);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void getNextTask(Taken taken) {
+        for (int i = 0; i < BATCH; i++) {
+            taken.taken.add(GET_NEXT_TASK.apply(taken.taskManager));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void removeTask(Removals removals) {
+        for (Object task : removals.chosen) {
+            REMOVE_TASK.accept(removals.taskManager, task);
+            removals.taken.add(task);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void updateTask(Updates updates) {
+        for (int i = 0; i < BATCH; i++) {
+            UPDATE_TASK_AND_BACK.accept(updates.taskManager, updates.tasks.get(updates.random.nextInt(updates.size)));
+        }
+    }
+    
+    // A single call: in a loop the JIT would hoist the unchanging result out
+    @Benchmark
+    public Object peekNextTask(Queue queue) {
+        return PEEK_NEXT_TASK.apply(queue.taskManager);
+    }
+    
+    private static Object filled(List<Object> tasks) {
+        Object taskManager = NEW_TASK_MANAGER.get();
+        for (Object task : tasks) {
+            ADD_TASK.accept(taskManager, task);
+        }
+        return taskManager;
+    }
+}
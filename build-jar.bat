@@ -6,7 +6,7 @@ echo Step 1: Creating output directory...
 if not exist out mkdir out
 
 echo Step 2: Compiling core Java sources...
-javac -encoding UTF-8 -cp src -d out src\ModernSwingUI.java src\TaskSchedulerTray.java src\TaskDialog.java src\Task.java src\TaskManager.java src\StorageHandler.java src\LocalDateTimeAdapter.java src\FilterUtils.java
+javac -encoding UTF-8 -cp src -d out src\ModernSwingUI.java src\TaskSchedulerTray.java src\TaskDialog.java src\Task.java src\TaskManager.java src\StorageHandler.java src\LocalDateTimeAdapter.java src\FilterUtils.java src\TaskJsonReader.java src\TaskJsonWriter.java src\TaskJournal.java src\TaskBinaryReader.java src\TaskBinaryWriter.java src\AutosaveService.java src\ReminderScheduler.java src\TimerWheel.java src\TaskQuery.java src\TitleIndex.java src\TaskTableModel.java src\ConcurrentTaskManager.java src\TaskStore.java
 if %errorlevel% neq 0 (
     echo Compilation failed!
     pause
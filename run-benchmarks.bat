@@ -0,0 +1,51 @@
+@echo off
+echo Running Smart Task Scheduler benchmarks...
+cd /d "%~dp0"
+
+rem The JMH benchmarks need Maven; without it, fall back to the javac-built harness in bench\
+where mvn >nul 2>nul
+if %errorlevel% neq 0 goto fallback
+
+echo Step 1: Building the application and JMH benchmarks...
+call mvn -B -q package
+if %errorlevel% neq 0 (
+    echo Build failed!
+    pause
+    exit /b 1
+)
+set benchmarks=java -jar ..\..\benchmarks\target\benchmarks.jar
+set baseline=baseline-results.tsv
+goto run
+
+:fallback
+echo Maven not found - using the dependency-free harness in bench\
+echo Step 1: Compiling sources and benchmarks...
+if not exist out-bench mkdir out-bench
+javac -encoding UTF-8 -d out-bench src\*.java bench\BenchmarkRunner.java bench\TaskSchedulerBenchmarks.java
+if %errorlevel% neq 0 (
+    echo Compilation failed!
+    pause
+    exit /b 1
+)
+set benchmarks=java -Xmx4g -cp ..\..\out-bench TaskSchedulerBenchmarks
+rem Its timings differ from JMH's, so it keeps a baseline of its own
+set baseline=fallback-baseline-results.tsv
+
+:run
+echo Step 2: Running benchmarks (compared with bench\%baseline%)...
+rem StorageHandler writes tasks.json to the working directory, so run from a scratch one
+if not exist bench\work mkdir bench\work
+cd bench\work
+%benchmarks% --out ..\latest-results.tsv --baseline ..\%baseline% %*
+set result=%errorlevel%
+cd ..\..
+
+echo.
+if %result% neq 0 (
+    echo Benchmarks found regressions - see above.
+) else (
+    echo Results saved to bench\latest-results.tsv
+    echo To accept them as the new baseline, copy them over bench\%baseline%
+)
+pause
+exit /b %result%
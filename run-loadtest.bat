@@ -0,0 +1,23 @@
+@echo off
+echo Running Smart Task Scheduler load test...
+cd /d "%~dp0"
+
+echo Step 1: Compiling sources and load test...
+if not exist out-bench mkdir out-bench
+javac -encoding UTF-8 -d out-bench src\*.java bench\WorkloadGenerator.java bench\LatencyHistogram.java bench\LoadTest.java
+if %errorlevel% neq 0 (
+    echo Compilation failed!
+    pause
+    exit /b 1
+)
+
+echo Step 2: Running load test...
+rem StorageHandler writes tasks.json to the working directory, so run from a scratch one
+if not exist bench\work mkdir bench\work
+cd bench\work
+java -Xmx4g -cp ..\..\out-bench LoadTest %*
+set result=%errorlevel%
+cd ..\..
+
+pause
+exit /b %result%
@@ -0,0 +1,240 @@
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Background autosave built on StorageHandler.
+ * Every mutation marks the task list dirty; a burst of changes is coalesced
+ * into a single write once the debounce delay has passed since the first of
+ * them. Tasks are captured on the thread that owns them (the EDT in the UI)
+ * and written on a dedicated single-thread executor, so the owner never waits
+ * for the disk.
+ *
+ * In journal mode the changes are already in the journal, so a burst only
+ * forces it to disk; rewriting the snapshot is left to journal compaction
+ * and to explicit saves (saveNow).
+ */
+public class AutosaveService {
+    
+    // Delay between the first unsaved change and the write (2 seconds)
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 2000;
+    
+    private final StorageHandler storageHandler;
+    private final Supplier<List<Task>> taskSource;
+    private final Executor ownerExecutor;
+    private final long debounceMillis;
+    private final ScheduledExecutorService saveExecutor;
+    
+    // Changes not yet captured, the capture waiting for the debounce, and whether
+    // saves are held back (guarded by this)
+    private int pendingChanges;
+    private ScheduledFuture<?> scheduledCapture;
+    private boolean suspended;
+    
+    // Outcome of the most recent write
+    private volatile long lastSaveMillis = -1;
+    private volatile LocalDateTime lastSaveTime;
+    private volatile boolean lastSaveFailed;
+    
+    private volatile Runnable statusListener;
+    
+    /**
+     * Creates the service
+     * @param storageHandler storage the snapshots are written to
+     * @param taskSource supplies the live tasks; only called on the owner thread
+     * @param ownerExecutor runs work on the thread that owns the tasks,
+     *        e.g. SwingUtilities::invokeLater
+     * @param debounceMillis delay before a burst of changes is written
+     */
+    public AutosaveService(StorageHandler storageHandler, Supplier<List<Task>> taskSource,
+                           Executor ownerExecutor, long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce delay cannot be negative");
+        }
+        this.storageHandler = storageHandler;
+        this.taskSource = taskSource;
+        this.ownerExecutor = ownerExecutor;
+        this.debounceMillis = debounceMillis;
+        this.saveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Records one mutation; the first change after a save schedules the next one
+     */
+    public void markDirty() {
+        synchronized (this) {
+            pendingChanges++;
+            scheduleCapture();
+        }
+        notifyStatus();
+    }
+    
+    /**
+     * Holds back saves while the task source is incomplete, e.g. while tasks
+     * are still loading. Changes marked meanwhile are counted, and saved once
+     * saves are released.
+     */
+    public void setSuspended(boolean suspended) {
+        synchronized (this) {
+            this.suspended = suspended;
+            if (suspended) {
+                if (scheduledCapture != null) {
+                    scheduledCapture.cancel(false);
+                    scheduledCapture = null;
+                }
+            } else if (pendingChanges > 0) {
+                scheduleCapture();
+            }
+        }
+    }
+    
+    // Caller holds the lock
+    private void scheduleCapture() {
+        if (scheduledCapture == null && !suspended && !saveExecutor.isShutdown()) {
+            scheduledCapture = saveExecutor.schedule(
+                () -> ownerExecutor.execute(this::captureScheduled), debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Captures the tasks immediately and writes them in the background
+     * (call on the owner thread)
+     */
+    public void saveNow() {
+        captureAndSave(true);
+    }
+    
+    /**
+     * Forgets unsaved changes, e.g. when the task list is about to be reloaded
+     * from disk
+     */
+    public void cancelPending() {
+        synchronized (this) {
+            pendingChanges = 0;
+            if (scheduledCapture != null) {
+                scheduledCapture.cancel(false);
+                scheduledCapture = null;
+            }
+        }
+        notifyStatus();
+    }
+    
+    // A debounced capture arriving after cancelPending or setSuspended has nothing to save
+    private void captureScheduled() {
+        synchronized (this) {
+            if (scheduledCapture == null) {
+                return;
+            }
+        }
+        captureAndSave(!storageHandler.isJournalEnabled());
+    }
+    
+    // Runs on the owner thread, so no mutation can slip in during the capture
+    private void captureAndSave(boolean snapshot) {
+        int changes;
+        synchronized (this) {
+            if (scheduledCapture != null) {
+                scheduledCapture.cancel(false);
+                scheduledCapture = null;
+            }
+            changes = pendingChanges;
+            pendingChanges = 0;
+        }
+        
+        BooleanSupplier save;
+        if (snapshot) {
+            StorageHandler.Snapshot captured = storageHandler.captureSnapshot(taskSource.get());
+            save = () -> storageHandler.saveSnapshot(captured);
+        } else {
+            save = storageHandler::syncJournal;
+        }
+        try {
+            saveExecutor.execute(() -> write(save, changes));
+        } catch (RuntimeException e) {
+            // Shut down; the changes stay pending
+            synchronized (this) {
+                pendingChanges += changes;
+            }
+        }
+        notifyStatus();
+    }
+    
+    private void write(BooleanSupplier save, int changes) {
+        long start = System.nanoTime();
+        boolean saved = save.getAsBoolean();
+        lastSaveMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        lastSaveTime = LocalDateTime.now();
+        lastSaveFailed = !saved;
+        
+        if (!saved) {
+            // Still unsaved; the next change schedules another attempt
+            synchronized (this) {
+                pendingChanges += changes;
+            }
+        }
+        notifyStatus();
+    }
+    
+    /**
+     * Gets the number of changes made since the last capture
+     */
+    public synchronized int getPendingChanges() {
+        return pendingChanges;
+    }
+    
+    /**
+     * Gets how long the last write took in milliseconds, or -1 before the first one
+     */
+    public long getLastSaveMillis() {
+        return lastSaveMillis;
+    }
+    
+    /**
+     * Gets when the last write finished, or null before the first one
+     */
+    public LocalDateTime getLastSaveTime() {
+        return lastSaveTime;
+    }
+    
+    public boolean isLastSaveFailed() {
+        return lastSaveFailed;
+    }
+    
+    /**
+     * Sets a callback run whenever the pending count or save outcome changes;
+     * it may be called from any thread
+     */
+    public void setStatusListener(Runnable listener) {
+        this.statusListener = listener;
+    }
+    
+    private void notifyStatus() {
+        Runnable listener = statusListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Stops scheduling new saves; writes already queued still complete
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (scheduledCapture != null) {
+                scheduledCapture.cancel(false);
+                scheduledCapture = null;
+            }
+        }
+        saveExecutor.shutdown();
+    }
+}
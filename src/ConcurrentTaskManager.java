@@ -0,0 +1,465 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Thread-safe task queue for use from several threads at once, with the
+ * ordering and core operations of TaskManager.
+ *
+ * Tasks live in concurrent skip lists ordered like TaskManager's queue and
+ * deadline indexes, so reads never lock: they run while writes proceed and
+ * never throw ConcurrentModificationException. Writes are serialized on one
+ * lock and file each task under an immutable copy of its priority, deadline
+ * and completion, so a task changed in place cannot corrupt the order.
+ *
+ * Reads are weakly consistent, like the java.util.concurrent collections:
+ * a walk sees every task that stays queued throughout it, in order, and may
+ * or may not see tasks added or removed meanwhile. A task updated during a
+ * walk is filed at its new position before it leaves the old one, so it is
+ * never missed, but may be seen at both. Listeners are notified on the
+ * writing thread, in the order the writes were made.
+ *
+ * Reads hand out the live Task objects, which writes change in place, so
+ * reading a task's fields while another thread edits it is racy: it may see
+ * a mix of old and new values, such as the new priority with the old
+ * deadline. Those objects are meant as handles for later writes. For values
+ * that are consistent and safe to read on any thread, use findCopyById and
+ * getAllTaskCopies: they are built from the entries' immutable copies.
+ *
+ * TaskManager itself is not thread-safe; the UI keeps it on the event
+ * dispatch thread and the tray receives reminders through ReminderScheduler.
+ */
+public class ConcurrentTaskManager {
+    
+    // Immutable index entry: a task with the values it is filed under (taken
+    // under the write lock, and published safely through the concurrent sets)
+    private static final class Entry {
+        final Task task;
+        final long id;
+        final String title;
+        final int priority;
+        final LocalDateTime deadline;
+        final boolean completed;
+        
+        Entry(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.title = task.getTitle();
+            this.priority = task.getPriority();
+            this.deadline = task.getDeadline();
+            this.completed = task.isCompleted();
+        }
+        
+        // Search key for range scans
+        Entry(int priority, LocalDateTime deadline, long id) {
+            this.task = null;
+            this.id = id;
+            this.title = null;
+            this.priority = priority;
+            this.deadline = deadline;
+            this.completed = false;
+        }
+        
+        // Detached task with the values this entry was filed under
+        Task copy() {
+            Task copy = new Task(id, title, priority, deadline);
+            copy.setCompleted(completed);
+            return copy;
+        }
+    }
+    
+    // Deadline (earliest first), then id
+    private static final Comparator<Entry> BY_DEADLINE = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int deadlineComparison = e1.deadline.compareTo(e2.deadline);
+            return deadlineComparison != 0 ? deadlineComparison : Long.compare(e1.id, e2.id);
+        }
+    };
+    
+    // Queue order, as in TaskManager: priority (highest first), then BY_DEADLINE
+    private static final Comparator<Entry> BY_PRIORITY = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int priorityComparison = Integer.compare(e2.priority, e1.priority);
+            return priorityComparison != 0 ? priorityComparison : BY_DEADLINE.compare(e1, e2);
+        }
+    };
+    
+    private final ConcurrentHashMap<Long, Entry> entriesById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> queue = new ConcurrentSkipListSet<>(BY_PRIORITY);
+    private final ConcurrentSkipListSet<Entry> pendingByDeadline = new ConcurrentSkipListSet<>(BY_DEADLINE);
+    private final ConcurrentSkipListSet<Entry> completedByDeadline = new ConcurrentSkipListSet<>(BY_DEADLINE);
+    private final List<TaskManager.TaskListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Held by every write; reads never take it
+    private final Object writeLock = new Object();
+    
+    // Counts kept by the writers, since skip lists count by walking
+    private volatile int size;
+    private volatile int pendingCount;
+    
+    // Add a task to the queue, as in TaskManager: adding a queued task again
+    // re-files it, and a different task with a queued id is rejected
+    public void addTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        synchronized (writeLock) {
+            Entry existing = entriesById.get(task.getId());
+            if (existing != null) {
+                if (existing.task != task) {
+                    throw new IllegalArgumentException("Another task with id " + task.getId() + " is already queued");
+                }
+                updateTask(task);
+                return;
+            }
+            file(new Entry(task));
+            size++;
+            for (TaskManager.TaskListener listener : listeners) {
+                listener.taskAdded(task);
+            }
+        }
+    }
+    
+    // Remove and return the highest priority task
+    public Task getNextTask() {
+        synchronized (writeLock) {
+            Entry first = firstOf(queue);
+            if (first == null) {
+                return null;
+            }
+            // The queue may hold an older entry of the task (see refile)
+            Entry entry = entriesById.get(first.id);
+            remove(entry);
+            return entry.task;
+        }
+    }
+    
+    // Peek at the highest priority task without removing it
+    public Task peekNextTask() {
+        Entry first = firstOf(queue);
+        return first == null ? null : first.task;
+    }
+    
+    // Remove a specific task from the queue
+    public boolean removeTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        synchronized (writeLock) {
+            Entry entry = entriesById.get(task.getId());
+            if (entry == null || entry.task != task) {
+                return false;
+            }
+            remove(entry);
+            return true;
+        }
+    }
+    
+    // Remove the task with the given id, returning it (or null if not queued)
+    public Task removeById(long id) {
+        synchronized (writeLock) {
+            Entry entry = entriesById.get(id);
+            if (entry == null) {
+                return null;
+            }
+            remove(entry);
+            return entry.task;
+        }
+    }
+    
+    // Look up a queued task by id
+    public Task findById(long id) {
+        Entry entry = entriesById.get(id);
+        return entry == null ? null : entry.task;
+    }
+    
+    // Copy of a queued task's values as last written, or null if not queued;
+    // unlike findById, safe to read while other threads edit the task
+    public Task findCopyById(long id) {
+        Entry entry = entriesById.get(id);
+        return entry == null ? null : entry.copy();
+    }
+    
+    // Check whether this exact task is queued
+    public boolean containsTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        Entry entry = entriesById.get(task.getId());
+        return entry != null && entry.task == task;
+    }
+    
+    // Restore queue order after a queued task was changed in place; the task
+    // must not be changed by another thread meanwhile (see updateTask below)
+    public boolean updateTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        synchronized (writeLock) {
+            Entry entry = entriesById.get(task.getId());
+            if (entry == null || entry.task != task) {
+                return false;
+            }
+            refile(entry);
+            fireTaskUpdated(task);
+            return true;
+        }
+    }
+    
+    // Apply new values to a queued task and move it to its new position, as one write
+    public boolean updateTask(Task task, String title, int priority, LocalDateTime deadline) {
+        synchronized (writeLock) {
+            if (!containsTask(task)) {
+                return false;
+            }
+            task.setTitle(title);
+            task.setPriority(priority);
+            task.setDeadline(deadline);
+            return updateTask(task);
+        }
+    }
+    
+    // Mark a queued task completed or pending
+    public boolean setTaskCompleted(Task task, boolean completed) {
+        synchronized (writeLock) {
+            if (!containsTask(task)) {
+                return false;
+            }
+            task.setCompleted(completed);
+            return updateTask(task);
+        }
+    }
+    
+    // Clear all tasks
+    public void clearAllTasks() {
+        synchronized (writeLock) {
+            entriesById.clear();
+            queue.clear();
+            pendingByDeadline.clear();
+            completedByDeadline.clear();
+            size = 0;
+            pendingCount = 0;
+            for (TaskManager.TaskListener listener : listeners) {
+                listener.tasksCleared();
+            }
+        }
+    }
+    
+    // Register a listener for task changes; it is called while the write lock
+    // is held, so it must not wait for another thread that writes to this queue
+    public void addTaskListener(TaskManager.TaskListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeTaskListener(TaskManager.TaskListener listener) {
+        listeners.remove(listener);
+    }
+    
+    // Get the number of tasks in the queue
+    public int getTaskCount() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getPendingCount() {
+        return pendingCount;
+    }
+    
+    public int getCompletedCount() {
+        return size - pendingCount;
+    }
+    
+    // Get all tasks in queue order
+    public List<Task> getAllTasks() {
+        return collect(queue, Integer.MAX_VALUE);
+    }
+    
+    // Get copies of all tasks in queue order, each with the values last written
+    // to it (see findCopyById) and listed once, even if it moved during the
+    // walk; such a task may appear at its old position
+    public List<Task> getAllTaskCopies() {
+        List<Task> result = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : queue) {
+            // An index keeps an older entry while the task's key is unchanged (see refile)
+            Entry latest = entriesById.get(entry.id);
+            if (latest != null && seen.add(entry.id)) {
+                result.add(latest.copy());
+            }
+        }
+        return result;
+    }
+    
+    // Get all pending tasks, earliest deadline first
+    public List<Task> getPendingTasks() {
+        return collect(pendingByDeadline, Integer.MAX_VALUE);
+    }
+    
+    // Get all completed tasks, earliest deadline first
+    public List<Task> getCompletedTasks() {
+        return collect(completedByDeadline, Integer.MAX_VALUE);
+    }
+    
+    // Get the first tasks in queue order, without walking the rest
+    public List<Task> getTopTasks(int limit) {
+        return collect(queue, limit);
+    }
+    
+    // Get tasks with a priority in [minPriority, maxPriority] in queue order
+    public List<Task> getTasksByPriority(int minPriority, int maxPriority) {
+        if (minPriority > maxPriority) {
+            return new ArrayList<>();
+        }
+        Entry first = new Entry(maxPriority, LocalDateTime.MIN, Long.MIN_VALUE);
+        Entry last = new Entry(minPriority, LocalDateTime.MAX, Long.MAX_VALUE);
+        return collect(queue.subSet(first, true, last, true), Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Gets tasks whose deadline lies in the given range, earliest first
+     * (bounds as in TaskManager.getTasksDueBetween)
+     */
+    public List<Task> getTasksDueBetween(LocalDateTime from, boolean fromInclusive,
+                                         LocalDateTime to, boolean toInclusive, boolean includeCompleted) {
+        NavigableSet<Entry> pending = deadlineRange(pendingByDeadline, from, fromInclusive, to, toInclusive);
+        if (!includeCompleted) {
+            return collect(pending, Integer.MAX_VALUE);
+        }
+        NavigableSet<Entry> completed = deadlineRange(completedByDeadline, from, fromInclusive, to, toInclusive);
+        
+        // Merge the two deadline-ordered ranges by the values they are filed under
+        List<Task> result = new ArrayList<>();
+        Iterator<Entry> pendingEntries = pending.iterator();
+        Iterator<Entry> completedEntries = completed.iterator();
+        Entry nextPending = pendingEntries.hasNext() ? pendingEntries.next() : null;
+        Entry nextCompleted = completedEntries.hasNext() ? completedEntries.next() : null;
+        while (nextPending != null || nextCompleted != null) {
+            if (nextCompleted == null || (nextPending != null && BY_DEADLINE.compare(nextPending, nextCompleted) < 0)) {
+                result.add(nextPending.task);
+                nextPending = pendingEntries.hasNext() ? pendingEntries.next() : null;
+            } else {
+                result.add(nextCompleted.task);
+                nextCompleted = completedEntries.hasNext() ? completedEntries.next() : null;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Counts tasks due in the given range, stopping at a cap
+     * (as TaskManager.countDueBetween)
+     */
+    public int countDueBetween(LocalDateTime from, boolean fromInclusive, LocalDateTime to, boolean toInclusive,
+                               boolean pending, boolean completed, int cap) {
+        int count = 0;
+        if (pending) {
+            count += count(deadlineRange(pendingByDeadline, from, fromInclusive, to, toInclusive), cap);
+        }
+        if (completed && count < cap) {
+            count += count(deadlineRange(completedByDeadline, from, fromInclusive, to, toInclusive), cap - count);
+        }
+        return count;
+    }
+    
+    // File an entry in every index
+    private void file(Entry entry) {
+        entriesById.put(entry.id, entry);
+        queue.add(entry);
+        (entry.completed ? completedByDeadline : pendingByDeadline).add(entry);
+        if (!entry.completed) {
+            pendingCount++;
+        }
+    }
+    
+    // Re-file a task under its current values: added at the new position
+    // before leaving the old one, so readers never miss it. An index whose
+    // key did not change keeps the old entry, as the new one would equal it.
+    private void refile(Entry old) {
+        Entry entry = new Entry(old.task);
+        entriesById.put(entry.id, entry);
+        if (BY_PRIORITY.compare(entry, old) != 0) {
+            queue.add(entry);
+            queue.remove(old);
+        }
+        if (entry.completed != old.completed || BY_DEADLINE.compare(entry, old) != 0) {
+            (entry.completed ? completedByDeadline : pendingByDeadline).add(entry);
+            (old.completed ? completedByDeadline : pendingByDeadline).remove(old);
+        }
+        pendingCount += (entry.completed ? 0 : 1) - (old.completed ? 0 : 1);
+    }
+    
+    // Drop an entry from every index
+    private void remove(Entry entry) {
+        entriesById.remove(entry.id);
+        queue.remove(entry);
+        (entry.completed ? completedByDeadline : pendingByDeadline).remove(entry);
+        if (!entry.completed) {
+            pendingCount--;
+        }
+        size--;
+        for (TaskManager.TaskListener listener : listeners) {
+            listener.taskRemoved(entry.task);
+        }
+    }
+    
+    private void fireTaskUpdated(Task task) {
+        for (TaskManager.TaskListener listener : listeners) {
+            listener.taskUpdated(task);
+        }
+    }
+    
+    private static NavigableSet<Entry> deadlineRange(ConcurrentSkipListSet<Entry> index, LocalDateTime from,
+                                                     boolean fromInclusive, LocalDateTime to, boolean toInclusive) {
+        // Search keys sort before or after every real task with the same deadline
+        Entry low = from == null ? null : new Entry(0, from, fromInclusive ? Long.MIN_VALUE : Long.MAX_VALUE);
+        Entry high = to == null ? null : new Entry(0, to, toInclusive ? Long.MAX_VALUE : Long.MIN_VALUE);
+        if (low != null && high != null) {
+            if (BY_DEADLINE.compare(low, high) > 0) {
+                return new ConcurrentSkipListSet<>(BY_DEADLINE);
+            }
+            return index.subSet(low, true, high, true);
+        }
+        if (low != null) {
+            return index.tailSet(low, true);
+        }
+        if (high != null) {
+            return index.headSet(high, true);
+        }
+        return index;
+    }
+    
+    // First entry of a set that may be emptied concurrently, or null
+    private static Entry firstOf(NavigableSet<Entry> entries) {
+        Iterator<Entry> iterator = entries.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+    
+    private static List<Task> collect(NavigableSet<Entry> entries, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (Iterator<Entry> it = entries.iterator(); result.size() < limit && it.hasNext(); ) {
+            result.add(it.next().task);
+        }
+        return result;
+    }
+    
+    private static int count(NavigableSet<Entry> entries, int cap) {
+        int count = 0;
+        for (Iterator<Entry> it = entries.iterator(); count < cap && it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+}
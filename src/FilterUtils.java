@@ -2,6 +2,8 @@ import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinTask;
 
 public class FilterUtils {
     
@@ -10,6 +12,9 @@ public class FilterUtils {
     public static final int MEDIUM_PRIORITY_THRESHOLD = 5;
     public static final int LOW_PRIORITY_THRESHOLD = 1;
     
+    // Lists shorter than this are filtered on the calling thread by the parallel methods
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20000;
+    
     /**
      * Filters tasks that are due today
      * @param tasks List of tasks to filter
@@ -193,21 +198,246 @@ public class FilterUtils {
     }
     
     /**
-     * Combines multiple filters - returns tasks that match ALL criteria
+     * Filters tasks by title using the TaskManager's title index. Each word of
+     * the search text must start a word of the title, so partially typed words
+     * match (type-ahead); unlike filterTasksByTitle it does not match text in
+     * the middle of a word.
+     * @param taskManager TaskManager to query
+     * @param searchText Text to search for in task titles
+     * @return List of tasks with matching titles, best match first
+     */
+    public static List<Task> filterTasksByTitle(TaskManager taskManager, String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return taskManager.getAllTasks();
+        }
+        return taskManager.searchTitles(searchText);
+    }
+    
+    /**
+     * Filters tasks by title like filterTasksByTitle(TaskManager, String), also
+     * matching words with small typos (one edit for words of 3-5 characters,
+     * two for longer ones)
+     * @param taskManager TaskManager to query
+     * @param searchText Text to search for in task titles
+     * @return List of tasks with matching titles, closest match first
+     */
+    public static List<Task> filterTasksByTitleFuzzy(TaskManager taskManager, String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return taskManager.getAllTasks();
+        }
+        return taskManager.searchTitlesFuzzy(searchText, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Filters tasks that are due today using the TaskManager's deadline index
+     * @param taskManager TaskManager to query
+     * @return List of tasks due today, earliest first
+     */
+    public static List<Task> filterTodaysTasks(TaskManager taskManager) {
+        LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
+        return taskManager.getTasksDueBetween(startOfDay, true, startOfDay.plusDays(1), false, true);
+    }
+    
+    /**
+     * Filters tasks with high priority (>= 8), reading the priority buckets
+     * only when TaskQuery's cost model finds them selective enough
+     * @param taskManager TaskManager to query
+     * @return List of high priority tasks
+     */
+    public static List<Task> filterHighPriorityTasks(TaskManager taskManager) {
+        return filterTasksByPriority(taskManager, HIGH_PRIORITY_THRESHOLD, 10);
+    }
+    
+    /**
+     * Filters tasks with medium priority (5-7), as filterHighPriorityTasks
+     * @param taskManager TaskManager to query
+     * @return List of medium priority tasks
+     */
+    public static List<Task> filterMediumPriorityTasks(TaskManager taskManager) {
+        return filterTasksByPriority(taskManager, MEDIUM_PRIORITY_THRESHOLD, HIGH_PRIORITY_THRESHOLD - 1);
+    }
+    
+    /**
+     * Filters tasks with low priority (1-4), as filterHighPriorityTasks
+     * @param taskManager TaskManager to query
+     * @return List of low priority tasks
+     */
+    public static List<Task> filterLowPriorityTasks(TaskManager taskManager) {
+        return filterTasksByPriority(taskManager, LOW_PRIORITY_THRESHOLD, MEDIUM_PRIORITY_THRESHOLD - 1);
+    }
+    
+    /**
+     * Filters tasks by priority range. A narrow range is read from the
+     * priority buckets (queue order); a broad one is scanned from the heap,
+     * which is cheaper per task (heap order).
+     * @param taskManager TaskManager to query
+     * @param minPriority Minimum priority (inclusive)
+     * @param maxPriority Maximum priority (inclusive)
+     * @return List of tasks within priority range
+     */
+    public static List<Task> filterTasksByPriority(TaskManager taskManager, int minPriority, int maxPriority) {
+        return TaskQuery.all().priorityBetween(minPriority, maxPriority).execute(taskManager);
+    }
+    
+    /**
+     * Filters completed tasks, reading the completion index (earliest
+     * deadline first) only when few tasks are completed, else scanning the heap
+     * @param taskManager TaskManager to query
+     * @return List of completed tasks
+     */
+    public static List<Task> filterCompletedTasks(TaskManager taskManager) {
+        return TaskQuery.all().completed(true).execute(taskManager);
+    }
+    
+    /**
+     * Filters pending (incomplete) tasks, as filterCompletedTasks
+     * @param taskManager TaskManager to query
+     * @return List of pending tasks
+     */
+    public static List<Task> filterPendingTasks(TaskManager taskManager) {
+        return TaskQuery.all().completed(false).execute(taskManager);
+    }
+    
+    /**
+     * Filters overdue tasks with a range scan over pending deadlines
+     * @param taskManager TaskManager to query
+     * @return List of overdue tasks, most overdue first
+     */
+    public static List<Task> filterOverdueTasks(TaskManager taskManager) {
+        return taskManager.getTasksDueBetween(null, false, LocalDateTime.now(), false, false);
+    }
+    
+    /**
+     * Filters pending tasks due within the next specified hours with a range scan
+     * @param taskManager TaskManager to query
+     * @param hours Number of hours from now
+     * @return List of tasks due within the specified time, earliest first
+     */
+    public static List<Task> filterTasksDueWithinHours(TaskManager taskManager, int hours) {
+        LocalDateTime now = LocalDateTime.now();
+        return taskManager.getTasksDueBetween(now, false, now.plusHours(hours), false, false);
+    }
+    
+    /**
+     * Filters tasks due this week with a range scan over deadlines
+     * @param taskManager TaskManager to query
+     * @return List of tasks due this week, earliest first
+     */
+    public static List<Task> filterThisWeeksTasks(TaskManager taskManager) {
+        LocalDateTime now = LocalDateTime.now();
+        return taskManager.getTasksDueBetween(now.minusDays(1), false, now.plusDays(7), false, true);
+    }
+    
+    /**
+     * Combines multiple filters - returns tasks that match ALL criteria.
+     * Consecutive TaskQuery filters are fused and checked in a single pass;
+     * other filters run one after another as before.
      * @param tasks List of tasks to filter
      * @param filters Array of filter conditions
      * @return List of tasks matching all filters
      */
     public static List<Task> applyMultipleFilters(List<Task> tasks, TaskFilter... filters) {
-        List<Task> result = new ArrayList<>(tasks);
+        List<Task> result = tasks;
+        TaskQuery fused = null;
         
         for (TaskFilter filter : filters) {
+            if (isFusable(filter)) {
+                fused = fused == null ? (TaskQuery) filter : fused.and((TaskQuery) filter);
+                continue;
+            }
+            if (fused != null) {
+                result = fused.execute(result);
+                fused = null;
+            }
             result = filter.apply(result);
         }
         
+        if (fused != null) {
+            result = fused.execute(result);
+        }
+        return result == tasks ? new ArrayList<>(tasks) : result;
+    }
+    
+    /**
+     * Combines multiple filters like applyMultipleFilters, running them over
+     * chunks of the list in parallel (see filterParallel)
+     * @param tasks List of tasks to filter
+     * @param threshold Lists shorter than this are filtered sequentially
+     * @param filters Array of filter conditions, each judging tasks one by one
+     * @return List of tasks matching all filters, in list order
+     */
+    public static List<Task> applyMultipleFiltersParallel(List<Task> tasks, int threshold, TaskFilter... filters) {
+        return filterParallel(tasks, chunk -> applyMultipleFilters(chunk, filters), threshold);
+    }
+    
+    /**
+     * Applies a filter in parallel on the common ForkJoinPool. The list is split
+     * into consecutive chunks shorter than the threshold, each chunk is filtered
+     * on its own and the results are joined in list order. The filter must judge
+     * each task on its own, as all predefined filters do; one that sorts or
+     * limits would only see a single chunk.
+     * @param tasks List of tasks to filter
+     * @param filter Filter to apply to each chunk
+     * @param threshold Lists shorter than this are filtered on the calling thread
+     * @return List of matching tasks, in list order
+     */
+    public static List<Task> filterParallel(List<Task> tasks, TaskFilter filter, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        if (tasks.size() < threshold) {
+            return filter.apply(tasks);
+        }
+        List<Task> source = tasks instanceof RandomAccess ? tasks : new ArrayList<>(tasks);
+        
+        // Equal chunks, each shorter than the threshold
+        int chunkCount = source.size() / threshold + 1;
+        int chunkSize = (source.size() + chunkCount - 1) / chunkCount;
+        List<ForkJoinTask<List<Task>>> chunks = new ArrayList<>(chunkCount);
+        for (int from = 0; from < source.size(); from += chunkSize) {
+            List<Task> chunk = source.subList(from, Math.min(from + chunkSize, source.size()));
+            chunks.add(ForkJoinTask.adapt(() -> filter.apply(chunk)));
+        }
+        ForkJoinTask.invokeAll(chunks);
+        
+        int total = 0;
+        for (ForkJoinTask<List<Task>> chunk : chunks) {
+            total += chunk.join().size();
+        }
+        List<Task> result = new ArrayList<>(total);
+        for (ForkJoinTask<List<Task>> chunk : chunks) {
+            result.addAll(chunk.join());
+        }
+        return result;
+    }
+    
+    /**
+     * Combines multiple filters over the TaskManager's tasks. Leading TaskQuery
+     * filters are fused into one query that runs against the indexes.
+     * @param taskManager TaskManager to query
+     * @param filters Array of filter conditions
+     * @return List of tasks matching all filters
+     */
+    public static List<Task> applyMultipleFilters(TaskManager taskManager, TaskFilter... filters) {
+        TaskQuery fused = TaskQuery.all();
+        int next = 0;
+        while (next < filters.length && isFusable(filters[next])) {
+            fused = fused.and((TaskQuery) filters[next]);
+            next++;
+        }
+        
+        List<Task> result = fused.execute(taskManager);
+        for (int i = next; i < filters.length; i++) {
+            result = filters[i].apply(result);
+        }
         return result;
     }
     
+    // Only queries without an order or limit can be merged with their neighbours
+    private static boolean isFusable(TaskFilter filter) {
+        return filter instanceof TaskQuery && ((TaskQuery) filter).isFilterOnly();
+    }
+    
     /**
      * Gets a summary of filter results
      * @param originalTasks Original list of tasks
@@ -232,28 +462,31 @@ public class FilterUtils {
     }
     
     /**
-     * Predefined filter implementations
+     * Predefined filter implementations, backed by TaskQuery so that
+     * applyMultipleFilters can fuse them
      */
     public static class Filters {
-        public static final TaskFilter TODAY = FilterUtils::filterTodaysTasks;
-        public static final TaskFilter HIGH_PRIORITY = FilterUtils::filterHighPriorityTasks;
-        public static final TaskFilter MEDIUM_PRIORITY = FilterUtils::filterMediumPriorityTasks;
-        public static final TaskFilter LOW_PRIORITY = FilterUtils::filterLowPriorityTasks;
-        public static final TaskFilter COMPLETED = FilterUtils::filterCompletedTasks;
-        public static final TaskFilter PENDING = FilterUtils::filterPendingTasks;
-        public static final TaskFilter OVERDUE = FilterUtils::filterOverdueTasks;
-        public static final TaskFilter THIS_WEEK = FilterUtils::filterThisWeeksTasks;
+        public static final TaskFilter TODAY = TaskQuery.all().dueToday();
+        public static final TaskFilter HIGH_PRIORITY = TaskQuery.all().priorityBetween(HIGH_PRIORITY_THRESHOLD, 10);
+        public static final TaskFilter MEDIUM_PRIORITY =
+            TaskQuery.all().priorityBetween(MEDIUM_PRIORITY_THRESHOLD, HIGH_PRIORITY_THRESHOLD - 1);
+        public static final TaskFilter LOW_PRIORITY =
+            TaskQuery.all().priorityBetween(LOW_PRIORITY_THRESHOLD, MEDIUM_PRIORITY_THRESHOLD - 1);
+        public static final TaskFilter COMPLETED = TaskQuery.all().completed(true);
+        public static final TaskFilter PENDING = TaskQuery.all().completed(false);
+        public static final TaskFilter OVERDUE = TaskQuery.all().overdue();
+        public static final TaskFilter THIS_WEEK = TaskQuery.all().dueThisWeek();
         
         public static TaskFilter dueWithinHours(int hours) {
-            return tasks -> filterTasksDueWithinHours(tasks, hours);
+            return TaskQuery.all().dueWithinHours(hours);
         }
         
         public static TaskFilter titleContains(String searchText) {
-            return tasks -> filterTasksByTitle(tasks, searchText);
+            return TaskQuery.all().titleContains(searchText);
         }
         
         public static TaskFilter priorityRange(int min, int max) {
-            return tasks -> filterTasksByPriority(tasks, min, max);
+            return TaskQuery.all().priorityBetween(min, max);
         }
     }
     
@@ -299,4 +532,27 @@ public class FilterUtils {
             default: return new ArrayList<>(tasks);
         }
     }
+    
+    /**
+     * Applies the selected filter, using the TaskManager's indexes where selective
+     * @param taskManager TaskManager to query
+     * @param filterIndex Index from getFilterOptions()
+     * @return Filtered list of tasks
+     */
+    public static List<Task> applySelectedFilter(TaskManager taskManager, int filterIndex) {
+        switch (filterIndex) {
+            case 0: return taskManager.getAllTasks(); // All Tasks
+            case 1: return filterTodaysTasks(taskManager);
+            case 2: return filterHighPriorityTasks(taskManager);
+            case 3: return filterMediumPriorityTasks(taskManager);
+            case 4: return filterLowPriorityTasks(taskManager);
+            case 5: return filterCompletedTasks(taskManager);
+            case 6: return filterPendingTasks(taskManager);
+            case 7: return filterOverdueTasks(taskManager);
+            case 8: return filterThisWeeksTasks(taskManager);
+            case 9: return filterTasksDueWithinHours(taskManager, 1);
+            case 10: return filterTasksDueWithinHours(taskManager, 24);
+            default: return taskManager.getAllTasks();
+        }
+    }
 }
\ No newline at end of file
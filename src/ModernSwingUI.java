@@ -1,5 +1,4 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
@@ -7,6 +6,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -17,25 +17,29 @@ public class ModernSwingUI extends JFrame {
     
     private TaskManager taskManager;
     private StorageHandler storageHandler;
+    private AutosaveService autosave;
     private TaskSchedulerTray taskTray;
     
     // UI Components
     private JTable taskTable;
-    private DefaultTableModel tableModel;
+    private TaskTableModel tableModel;
     private JLabel statusLabel;
+    private JLabel autosaveLabel;
     private JLabel taskCountLabel;
     private JComboBox<String> filterComboBox;
     private JButton refreshButton;
     
+    // True while tasks are still streaming in from disk
+    private boolean loading;
+    // Reminders shown during the load, recorded once it is done
+    private final List<Task> remindersDuringLoad = new ArrayList<>();
+    
     // Colors and styling
     private static final Color PRIMARY_COLOR = new Color(70, 130, 180);
     private static final Color SUCCESS_COLOR = new Color(46, 125, 50);
     private static final Color WARNING_COLOR = new Color(255, 152, 0);
     private static final Color ERROR_COLOR = new Color(244, 67, 54);
     
-    // Table column names
-    private final String[] columnNames = {"Priority", "Title", "Deadline", "Status"};
-    
     public ModernSwingUI() {
         // Set modern look and feel
         try {
@@ -53,12 +57,40 @@ public class ModernSwingUI extends JFrame {
         taskManager = new TaskManager();
         storageHandler = new StorageHandler();
         
+        // Optional compact binary snapshots (-Dtaskscheduler.snapshot.format=binary)
+        if ("binary".equalsIgnoreCase(System.getProperty("taskscheduler.snapshot.format"))) {
+            storageHandler.setSnapshotFormat(StorageHandler.SnapshotFormat.BINARY);
+        }
+        
+        // Journal each change instead of rewriting tasks.json; the threshold can be
+        // tuned with -Dtaskscheduler.journal.compactBytes=<bytes>
+        storageHandler.enableJournal(
+            Long.getLong("taskscheduler.journal.compactBytes", StorageHandler.DEFAULT_COMPACTION_THRESHOLD),
+            () -> taskManager.getAllTasks());
+        
         initializeUI();
-        loadTasksOnStartup();
-        refreshTaskTable();
+        
+        // Changes are saved in the background shortly after they are made; the delay
+        // can be tuned with -Dtaskscheduler.autosave.debounceMs=<millis>
+        autosave = new AutosaveService(storageHandler, () -> taskManager.getAllTasks(),
+            SwingUtilities::invokeLater,
+            Long.getLong("taskscheduler.autosave.debounceMs", AutosaveService.DEFAULT_DEBOUNCE_MILLIS));
+        autosave.setStatusListener(() -> SwingUtilities.invokeLater(this::updateAutosaveStatus));
         
         // Initialize system tray after UI is ready
         taskTray = new TaskSchedulerTray(taskManager, this);
+        // Shown reminders are saved like any other change, so a restart does not repeat
+        // them; during a load they wait, as saving then would write a partial list
+        taskTray.setReminderRecorder(task -> {
+            if (loading) {
+                remindersDuringLoad.add(task);
+            } else {
+                recordReminders(task);
+            }
+        });
+        
+        // Tasks stream in on a background thread so the window opens immediately
+        loadTasksOnStartup();
     }
     
     private void initializeUI() {
@@ -81,15 +113,18 @@ public class ModernSwingUI extends JFrame {
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
-                saveTasks();
                 if (taskTray != null && taskTray.isTraySupported()) {
                     // Minimize to tray
+                    saveTasks();
                     setVisible(false);
                     taskTray.showMessage("Task Scheduler", 
                         "Application minimized to system tray", 
                         java.awt.TrayIcon.MessageType.INFO);
                 } else {
-                    // Exit if tray not supported
+                    // Exit if tray not supported, saving on this thread so the write completes
+                    if (!loading) {
+                        storageHandler.saveTasks(taskManager.getAllTasks());
+                    }
                     if (taskTray != null) taskTray.cleanup();
                     System.exit(0);
                 }
@@ -226,7 +261,9 @@ public class ModernSwingUI extends JFrame {
         
         // Refresh button
         refreshButton = createStyledButton("↻ Refresh", null);
-        refreshButton.addActionListener(e -> refreshTaskTable());
+        refreshButton.addActionListener(e -> {
+            if (!isStillLoading()) refreshTaskTable();
+        });
         gbc.gridx = 3;
         filterPanel.add(refreshButton, gbc);
         
@@ -238,19 +275,8 @@ public class ModernSwingUI extends JFrame {
         tablePanel.setBorder(BorderFactory.createTitledBorder(
             BorderFactory.createLineBorder(Color.LIGHT_GRAY), "Tasks"));
         
-        // Create table model
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-            
-            @Override
-            public Class<?> getColumnClass(int column) {
-                if (column == 0) return Integer.class; // Priority column for sorting
-                return String.class;
-            }
-        };
+        // Rows are read from the task list as they are painted
+        tableModel = new TaskTableModel();
         
         taskTable = new JTable(tableModel);
         taskTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -304,19 +330,29 @@ public class ModernSwingUI extends JFrame {
         }
         trayStatusLabel.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
         
+        // Autosave state in the middle
+        autosaveLabel = new JLabel("", SwingConstants.CENTER);
+        autosaveLabel.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+        autosaveLabel.setForeground(Color.GRAY);
+        
         statusPanel.add(statusLabel, BorderLayout.WEST);
+        statusPanel.add(autosaveLabel, BorderLayout.CENTER);
         statusPanel.add(trayStatusLabel, BorderLayout.EAST);
         
         return statusPanel;
     }
     
     private void showAddTaskDialog() {
+        if (isStillLoading()) return;
+        
         TaskDialog dialog = new TaskDialog(this, "Add New Task", null);
         dialog.setVisible(true);
         
         if (dialog.isConfirmed()) {
             Task newTask = dialog.getTask();
             taskManager.addTask(newTask);
+            storageHandler.recordAdd(newTask);
+            autosave.markDirty();
             refreshTaskTable();
             setStatus("Task added: " + newTask.getTitle());
             
@@ -328,29 +364,24 @@ public class ModernSwingUI extends JFrame {
     }
     
     private void editTask() {
-        int selectedRow = taskTable.getSelectedRow();
-        if (selectedRow == -1) {
-            showError("Please select a task to edit.");
-            return;
-        }
+        if (isStillLoading()) return;
         
-        List<Task> allTasks = taskManager.getAllTasks();
-        if (selectedRow >= allTasks.size()) {
-            showError("Invalid task selection.");
-            return;
-        }
+        Task task = getSelectedTask("edit");
+        if (task == null) return;
         
-        Task task = allTasks.get(selectedRow);
         TaskDialog dialog = new TaskDialog(this, "Edit Task", task);
         dialog.setVisible(true);
         
         if (dialog.isConfirmed()) {
             Task updatedTask = dialog.getTask();
-            task.setTitle(updatedTask.getTitle());
-            task.setPriority(updatedTask.getPriority());
-            task.setDeadline(updatedTask.getDeadline());
+            // Route the edit through the manager so the task is re-queued in order
+            taskManager.updateTask(task, updatedTask.getTitle(),
+                updatedTask.getPriority(), updatedTask.getDeadline());
+            storageHandler.recordUpdate(task);
+            autosave.markDirty();
             
             refreshTaskTable();
+            selectTask(task);
             setStatus("Task updated: " + task.getTitle());
             
             // Update tray with new task manager state
@@ -361,19 +392,11 @@ public class ModernSwingUI extends JFrame {
     }
     
     private void deleteTask() {
-        int selectedRow = taskTable.getSelectedRow();
-        if (selectedRow == -1) {
-            showError("Please select a task to delete.");
-            return;
-        }
+        if (isStillLoading()) return;
         
-        List<Task> allTasks = taskManager.getAllTasks();
-        if (selectedRow >= allTasks.size()) {
-            showError("Invalid task selection.");
-            return;
-        }
+        Task task = getSelectedTask("delete");
+        if (task == null) return;
         
-        Task task = allTasks.get(selectedRow);
         int result = JOptionPane.showConfirmDialog(
             this,
             "Are you sure you want to delete:\n" + task.getTitle() + "?",
@@ -384,6 +407,8 @@ public class ModernSwingUI extends JFrame {
         
         if (result == JOptionPane.YES_OPTION) {
             taskManager.removeTask(task);
+            storageHandler.recordDelete(task);
+            autosave.markDirty();
             refreshTaskTable();
             setStatus("Task deleted: " + task.getTitle());
             
@@ -395,21 +420,16 @@ public class ModernSwingUI extends JFrame {
     }
     
     private void markTaskComplete() {
-        int selectedRow = taskTable.getSelectedRow();
-        if (selectedRow == -1) {
-            showError("Please select a task to mark complete.");
-            return;
-        }
+        if (isStillLoading()) return;
         
-        List<Task> allTasks = taskManager.getAllTasks();
-        if (selectedRow >= allTasks.size()) {
-            showError("Invalid task selection.");
-            return;
-        }
+        Task task = getSelectedTask("mark complete");
+        if (task == null) return;
         
-        Task task = allTasks.get(selectedRow);
-        task.setCompleted(true);
+        taskManager.setTaskCompleted(task, true);
+        storageHandler.recordComplete(task);
+        autosave.markDirty();
         refreshTaskTable();
+        selectTask(task);
         setStatus("Task completed: " + task.getTitle());
         
         // Update tray with new task manager state
@@ -418,41 +438,77 @@ public class ModernSwingUI extends JFrame {
         }
     }
     
+    /**
+     * Gets the task in the selected row, showing an error if there is none
+     * @param action What the task is selected for, used in the error message
+     * @return The selected task, or null if none is selected or it is gone
+     */
+    private Task getSelectedTask(String action) {
+        int selectedRow = taskTable.getSelectedRow();
+        if (selectedRow == -1) {
+            showError("Please select a task to " + action + ".");
+            return null;
+        }
+        
+        // Filtered rows are not in queue order, so ask the model for the row's task
+        Task task = tableModel.getTaskAt(taskTable.convertRowIndexToModel(selectedRow));
+        if (!taskManager.containsTask(task)) {
+            showError("Invalid task selection.");
+            return null;
+        }
+        return task;
+    }
+    
+    // Keep the task selected after a change moved it to another row
+    private void selectTask(Task task) {
+        int row = tableModel.getRowOf(task.getId());
+        if (row == -1) {
+            taskTable.clearSelection();
+            return;
+        }
+        int viewRow = taskTable.convertRowIndexToView(row);
+        taskTable.setRowSelectionInterval(viewRow, viewRow);
+        taskTable.scrollRectToVisible(taskTable.getCellRect(viewRow, 0, true));
+    }
+    
     private void applyFilter() {
+        if (isStillLoading()) return;
+        
         String selectedFilter = (String) filterComboBox.getSelectedItem();
-        List<Task> allTasks = taskManager.getAllTasks();
         List<Task> filteredTasks;
         
+        // Filters read TaskManager's indexes when they are selective, else scan the queue
         switch (selectedFilter) {
             case "All Tasks":
-                filteredTasks = allTasks;
-                break;
+                refreshTaskTable();
+                setStatus("Filter applied: " + selectedFilter + " (" + taskManager.getTaskCount() + " tasks shown)");
+                return;
             case "Today's Tasks":
-                filteredTasks = FilterUtils.filterTodaysTasks(allTasks);
+                filteredTasks = FilterUtils.filterTodaysTasks(taskManager);
                 break;
             case "High Priority (8+)":
-                filteredTasks = FilterUtils.filterHighPriorityTasks(allTasks);
+                filteredTasks = FilterUtils.filterHighPriorityTasks(taskManager);
                 break;
             case "Medium Priority (4-7)":
-                filteredTasks = FilterUtils.filterMediumPriorityTasks(allTasks);
+                filteredTasks = FilterUtils.filterMediumPriorityTasks(taskManager);
                 break;
             case "Low Priority (1-3)":
-                filteredTasks = FilterUtils.filterLowPriorityTasks(allTasks);
+                filteredTasks = FilterUtils.filterLowPriorityTasks(taskManager);
                 break;
             case "Completed Tasks":
-                filteredTasks = FilterUtils.filterCompletedTasks(allTasks);
+                filteredTasks = FilterUtils.filterCompletedTasks(taskManager);
                 break;
             case "Pending Tasks":
-                filteredTasks = FilterUtils.filterPendingTasks(allTasks);
+                filteredTasks = FilterUtils.filterPendingTasks(taskManager);
                 break;
             case "Overdue Tasks":
-                filteredTasks = FilterUtils.filterOverdueTasks(allTasks);
+                filteredTasks = FilterUtils.filterOverdueTasks(taskManager);
                 break;
             case "This Week's Tasks":
-                filteredTasks = FilterUtils.filterThisWeeksTasks(allTasks);
+                filteredTasks = FilterUtils.filterThisWeeksTasks(taskManager);
                 break;
             default:
-                filteredTasks = allTasks;
+                filteredTasks = taskManager.getAllTasks();
         }
         
         updateTableWithTasks(filteredTasks);
@@ -460,64 +516,142 @@ public class ModernSwingUI extends JFrame {
     }
     
     private void saveTasks() {
+        // Saving a partially loaded list would drop the tasks not read yet
+        if (loading) {
+            setStatus("Still loading tasks - save skipped");
+            return;
+        }
+        
         try {
-            List<Task> allTasks = taskManager.getAllTasks();
-            storageHandler.saveTasks(allTasks);
-            setStatus("Tasks saved successfully (" + allTasks.size() + " tasks)");
+            // Captured here, written by the autosave thread
+            autosave.saveNow();
+            setStatus("Saving " + taskManager.getTaskCount() + " tasks...");
         } catch (Exception e) {
             showError("Error saving tasks: " + e.getMessage());
         }
     }
     
     private void loadTasks() {
-        try {
-            List<Task> loadedTasks = storageHandler.loadTasks();
-            
-            taskManager = new TaskManager();
-            for (Task task : loadedTasks) {
-                taskManager.addTask(task);
-            }
-            
-            refreshTaskTable();
-            setStatus("Tasks loaded successfully (" + loadedTasks.size() + " tasks)");
-        } catch (Exception e) {
-            showError("Error loading tasks: " + e.getMessage());
+        if (isStillLoading()) return;
+        
+        // Reloading replaces the list, so a scheduled autosave has nothing left to write
+        autosave.cancelPending();
+        taskManager = new TaskManager();
+        
+        // Update tray with new task manager state
+        if (taskTray != null) {
+            taskTray.updateTaskManager(taskManager);
         }
+        
+        startBackgroundLoad("Tasks loaded successfully (%d tasks)");
     }
     
     private void loadTasksOnStartup() {
-        try {
-            List<Task> existingTasks = storageHandler.loadTasks();
-            for (Task task : existingTasks) {
-                taskManager.addTask(task);
+        startBackgroundLoad("Loaded %d existing tasks");
+    }
+    
+    /**
+     * Streams tasks from storage on a worker thread and adds each batch to the
+     * task manager and table on the EDT as it arrives
+     * @param doneMessage status format for the final task count
+     */
+    private void startBackgroundLoad(String doneMessage) {
+        loading = true;
+        // Nothing may be written from the partial list until the load is done
+        storageHandler.setCompactionSuspended(true);
+        autosave.setSuspended(true);
+        tableModel.clear();
+        updateTaskCount(0);
+        statusLabel.setText("Loading tasks...");
+        
+        final TaskManager target = taskManager;
+        new SwingWorker<Integer, List<Task>>() {
+            @Override
+            protected Integer doInBackground() {
+                return storageHandler.loadTasksInBatches(StorageHandler.DEFAULT_LOAD_BATCH_SIZE, this::publish);
             }
-            if (!existingTasks.isEmpty()) {
-                setStatus("Loaded " + existingTasks.size() + " existing tasks");
+            
+            @Override
+            protected void process(List<List<Task>> batches) {
+                // Whatever arrived since the last call goes into the queue in one bulk add
+                List<Task> arrived = new ArrayList<>();
+                for (List<Task> batch : batches) {
+                    arrived.addAll(batch);
+                    tableModel.appendTasks(batch);
+                }
+                target.addAll(arrived);
+                updateTaskCount(target.getTaskCount());
+                statusLabel.setText("Loading tasks... (" + target.getTaskCount() + " so far)");
             }
-        } catch (Exception e) {
-            setStatus("No existing tasks found - starting fresh");
+            
+            @Override
+            protected void done() {
+                loading = false;
+                storageHandler.setCompactionSuspended(false);
+                autosave.setSuspended(false);
+                for (Task task : remindersDuringLoad) {
+                    if (taskManager.containsTask(task)) {
+                        recordReminders(task);
+                    }
+                }
+                remindersDuringLoad.clear();
+                // Rows were appended in file order; re-sync with queue order
+                refreshTaskTable();
+                try {
+                    int count = get();
+                    if (count > 0) {
+                        setStatus(String.format(doneMessage, count));
+                    } else {
+                        setStatus("No existing tasks found - starting fresh");
+                    }
+                } catch (Exception e) {
+                    showError("Error loading tasks: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
+    private void recordReminders(Task task) {
+        storageHandler.recordReminders(task);
+        autosave.markDirty();
+    }
+    
+    private boolean isStillLoading() {
+        if (loading) {
+            setStatus("Please wait - tasks are still loading");
         }
+        return loading;
     }
     
+    // Show the whole queue; once shown, the table follows each change by itself
     private void refreshTaskTable() {
-        List<Task> allTasks = taskManager.getAllTasks();
-        updateTableWithTasks(allTasks);
-        updateTaskCount(allTasks.size());
+        tableModel.showQueue(taskManager);
+        updateTaskCount(taskManager.getTaskCount());
     }
     
+    // One table event whatever the size; cells are formatted when painted
     private void updateTableWithTasks(List<Task> tasks) {
-        tableModel.setRowCount(0);
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
-        
-        for (Task task : tasks) {
-            Object[] rowData = {
-                task.getPriority(),
-                task.getTitle(),
-                task.getDeadline().format(formatter),
-                task.isCompleted() ? "Completed" : "Pending"
-            };
-            tableModel.addRow(rowData);
+        tableModel.setTasks(tasks);
+    }
+    
+    private void updateAutosaveStatus() {
+        int pending = autosave.getPendingChanges();
+        long lastSaveMillis = autosave.getLastSaveMillis();
+        String lastSave = lastSaveMillis >= 0
+            ? "last save " + autosave.getLastSaveTime().format(DateTimeFormatter.ofPattern("HH:mm:ss"))
+                + " (" + lastSaveMillis + " ms)"
+            : "";
+        
+        if (autosave.isLastSaveFailed()) {
+            autosaveLabel.setText("Autosave failed - " + pending + " unsaved change" + (pending != 1 ? "s" : ""));
+            autosaveLabel.setForeground(ERROR_COLOR);
+        } else if (pending > 0) {
+            autosaveLabel.setText(pending + " unsaved change" + (pending != 1 ? "s" : "")
+                + (lastSave.isEmpty() ? "" : " - " + lastSave));
+            autosaveLabel.setForeground(WARNING_COLOR);
+        } else {
+            autosaveLabel.setText(lastSave.isEmpty() ? "" : "All changes saved - " + lastSave);
+            autosaveLabel.setForeground(Color.GRAY);
         }
     }
     
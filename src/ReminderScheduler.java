@@ -0,0 +1,272 @@
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires deadline reminders at exact thresholds instead of polling every task.
+ * Each pending task has one entry in a TimerWheel, set to its next threshold
+ * (15 minutes before, 5 minutes before, and at the deadline); when the entry
+ * fires it moves on to the following threshold. Entries follow TaskManager
+ * changes through its listener, so a tick only touches tasks that are due.
+ * Thresholds already shown are recorded on the task, so each one fires once
+ * per deadline however often the task is edited or rescheduled.
+ */
+public class ReminderScheduler implements TaskManager.TaskListener {
+    
+    // Minutes before the deadline at which reminders fire; 0 is the overdue alert
+    static final int[] THRESHOLD_MINUTES = {15, 5, 0};
+    
+    // A missed reminder is still shown up to an hour after the deadline (e.g. at startup)
+    static final long OVERDUE_WINDOW_MINUTES = 60;
+    
+    private static final long TICK_MILLIS = 1000;
+    
+    /**
+     * Receives reminders on the alert executor
+     */
+    public interface ReminderHandler {
+        void reminderDue(Task task, int thresholdMinutes);
+    }
+    
+    // Wheel entry; the deadline is copied so ticks never read the live task
+    private static final class Reminder {
+        final Task task;
+        final long deadlineMillis;
+        int threshold;
+        TimerWheel.Timeout<Reminder> timeout;
+        
+        Reminder(Task task, long deadlineMillis) {
+            this.task = task;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+    
+    private final ReminderHandler handler;
+    private final Executor alertExecutor;
+    
+    // Guarded by this
+    private TimerWheel<Reminder> wheel;
+    private final Map<Long, Reminder> remindersById = new HashMap<>();
+    private TaskManager taskManager;
+    
+    private ScheduledExecutorService ticker;
+    
+    /**
+     * Creates a stopped scheduler
+     * @param handler shows the reminders
+     * @param alertExecutor thread the handler runs on, e.g. SwingUtilities::invokeLater
+     */
+    public ReminderScheduler(ReminderHandler handler, Executor alertExecutor) {
+        this.handler = handler;
+        this.alertExecutor = alertExecutor;
+        this.wheel = new TimerWheel<>(TICK_MILLIS, System.currentTimeMillis());
+    }
+    
+    /**
+     * Follows the given TaskManager from now on, replacing the previous one
+     * (call on the thread that mutates it)
+     */
+    public synchronized void attach(TaskManager newTaskManager) {
+        if (newTaskManager == taskManager) {
+            return;
+        }
+        if (taskManager != null) {
+            taskManager.removeTaskListener(this);
+        }
+        taskManager = newTaskManager;
+        if (taskManager != null) {
+            taskManager.addTaskListener(this);
+        }
+        rebuild();
+    }
+    
+    /**
+     * Starts firing reminders; reminders missed while stopped are not replayed
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        rebuild();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+    
+    public synchronized boolean isRunning() {
+        return ticker != null;
+    }
+    
+    /**
+     * Gets the number of tasks waiting for a reminder
+     */
+    public synchronized int getScheduledCount() {
+        return wheel.size();
+    }
+    
+    @Override
+    public synchronized void taskAdded(Task task) {
+        schedule(task);
+    }
+    
+    @Override
+    public synchronized void taskUpdated(Task task) {
+        Reminder existing = remindersById.get(task.getId());
+        if (existing != null && !task.isCompleted() && existing.task == task
+                && existing.deadlineMillis == toMillis(task.getDeadline())) {
+            return; // Same deadline, the pending threshold still applies
+        }
+        schedule(task);
+    }
+    
+    @Override
+    public synchronized void taskRemoved(Task task) {
+        cancel(task.getId());
+    }
+    
+    // Bulk changes are handled under one lock rather than one per task
+    @Override
+    public synchronized void tasksAdded(List<Task> tasks) {
+        for (Task task : tasks) {
+            taskAdded(task);
+        }
+    }
+    
+    @Override
+    public synchronized void tasksUpdated(List<Task> tasks) {
+        for (Task task : tasks) {
+            taskUpdated(task);
+        }
+    }
+    
+    @Override
+    public synchronized void tasksRemoved(List<Task> tasks) {
+        for (Task task : tasks) {
+            taskRemoved(task);
+        }
+    }
+    
+    @Override
+    public synchronized void tasksCleared() {
+        for (Reminder reminder : remindersById.values()) {
+            wheel.cancel(reminder.timeout);
+        }
+        remindersById.clear();
+    }
+    
+    // A replacement is rebuilt under one lock, so no tick sees the empty schedule
+    @Override
+    public synchronized void tasksReplaced(List<Task> tasks) {
+        tasksCleared();
+        tasksAdded(tasks);
+    }
+    
+    // Runs on the ticker thread
+    private void tick() {
+        List<Runnable> alerts = new ArrayList<>();
+        synchronized (this) {
+            List<Reminder> due = new ArrayList<>();
+            wheel.advanceTo(System.currentTimeMillis(), due::add);
+            for (Reminder reminder : due) {
+                Task task = reminder.task;
+                int threshold = reminder.threshold;
+                alerts.add(() -> deliver(task, threshold));
+                
+                if (reminder.threshold + 1 < THRESHOLD_MINUTES.length) {
+                    scheduleThreshold(reminder, reminder.threshold + 1);
+                } else {
+                    remindersById.remove(task.getId());
+                }
+            }
+        }
+        
+        for (Runnable alert : alerts) {
+            alertExecutor.execute(alert);
+        }
+    }
+    
+    // Runs on the alert executor, the thread that owns the task
+    private void deliver(Task task, int threshold) {
+        if (task.isReminderSent(threshold)) {
+            return;
+        }
+        task.markReminderSent(threshold);
+        handler.reminderDue(task, THRESHOLD_MINUTES[threshold]);
+    }
+    
+    private void rebuild() {
+        wheel = new TimerWheel<>(TICK_MILLIS, System.currentTimeMillis());
+        remindersById.clear();
+        if (taskManager != null) {
+            for (Task task : taskManager.getAllTasks()) {
+                schedule(task);
+            }
+        }
+    }
+    
+    private void schedule(Task task) {
+        cancel(task.getId());
+        if (task.isCompleted() || task.getDeadline() == null) {
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        Reminder reminder = new Reminder(task, toMillis(task.getDeadline()));
+        if (now - reminder.deadlineMillis > TimeUnit.MINUTES.toMillis(OVERDUE_WINDOW_MINUTES)) {
+            return; // Long overdue, nothing left to remind about
+        }
+        
+        // Start at the latest threshold already reached (shown on the next tick)
+        // or at the first one ahead
+        int threshold = 0;
+        while (threshold + 1 < THRESHOLD_MINUTES.length && thresholdMillis(reminder, threshold + 1) <= now) {
+            threshold++;
+        }
+        // Skip thresholds already shown for this deadline
+        while (threshold < THRESHOLD_MINUTES.length && task.isReminderSent(threshold)) {
+            threshold++;
+        }
+        if (threshold == THRESHOLD_MINUTES.length) {
+            return;
+        }
+        scheduleThreshold(reminder, threshold);
+        remindersById.put(task.getId(), reminder);
+    }
+    
+    private void scheduleThreshold(Reminder reminder, int threshold) {
+        reminder.threshold = threshold;
+        reminder.timeout = wheel.schedule(reminder, thresholdMillis(reminder, threshold));
+    }
+    
+    private void cancel(long taskId) {
+        Reminder reminder = remindersById.remove(taskId);
+        if (reminder != null) {
+            wheel.cancel(reminder.timeout);
+        }
+    }
+    
+    private static long thresholdMillis(Reminder reminder, int threshold) {
+        return reminder.deadlineMillis - TimeUnit.MINUTES.toMillis(THRESHOLD_MINUTES[threshold]);
+    }
+    
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
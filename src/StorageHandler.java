@@ -1,15 +1,103 @@
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class StorageHandler {
     
     private static final String TASKS_FILE = "tasks.json";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String JOURNAL_FILE = TASKS_FILE + ".journal";
+    private static final String TEMP_FILE = TASKS_FILE + ".tmp";
+    
+    /**
+     * On-disk encodings for the snapshot file; loadTasks detects either one
+     */
+    public enum SnapshotFormat {
+        JSON,
+        BINARY
+    }
+    
+    /**
+     * Pull-style reader shared by the snapshot formats
+     */
+    public interface TaskReader extends Closeable {
+        // Returns the next task, or null at the end of the snapshot
+        Task next() throws IOException;
+    }
+    
+    /**
+     * Streaming writer shared by the snapshot formats
+     */
+    public interface TaskWriter extends Closeable {
+        void write(Task task) throws IOException;
+        
+        int getCount();
+        
+        // Completes the snapshot and flushes it without closing the channel
+        void finish() throws IOException;
+    }
+    
+    private SnapshotFormat snapshotFormat = SnapshotFormat.JSON;
+    
+    // Snapshots at least this large are read through a memory mapping (256 MB);
+    // below that, buffered channel reads are as fast and need no unmapping
+    public static final long DEFAULT_MAPPED_READ_THRESHOLD = 256L * 1024 * 1024;
+    private long mappedReadThreshold = DEFAULT_MAPPED_READ_THRESHOLD;
+    
+    // Tasks handed to a loadTasksInBatches consumer at a time
+    public static final int DEFAULT_LOAD_BATCH_SIZE = 1000;
+    
+    // Journal size that triggers a background snapshot (1 MB)
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    
+    // Journal mode state (null/unused until enableJournal is called)
+    private TaskJournal journal;
+    private Supplier<List<Task>> snapshotSource;
+    private long compactionThreshold;
+    private ExecutorService compactionExecutor;
+    private volatile boolean compactionPending;
+    private volatile boolean compactionSuspended;
+    
+    // Orders snapshot writes so an older snapshot never overwrites a newer one
+    private final Object snapshotLock = new Object();
+    private final AtomicLong snapshotSequence = new AtomicLong();
+    private long writtenSequence;
+    
+    /**
+     * Tasks captured for a snapshot write, in capture order
+     */
+    public static final class Snapshot {
+        private final List<Task> tasks;
+        private final long sequence;
+        
+        private Snapshot(List<Task> tasks, long sequence) {
+            this.tasks = tasks;
+            this.sequence = sequence;
+        }
+        
+        public int size() {
+            return tasks.size();
+        }
+    }
     
     /**
      * Saves a list of tasks to the tasks.json file
@@ -17,25 +105,41 @@ public class StorageHandler {
      * @return true if save was successful, false otherwise
      */
     public boolean saveTasks(List<Task> tasks) {
+        // The caller's thread owns the tasks for the duration, so no copies are needed
+        return saveSnapshot(beginSnapshot(tasks));
+    }
+    
+    /**
+     * Captures the current tasks so they can be written later on another thread.
+     * Must be called on the thread that mutates the tasks: field values are
+     * copied, and in journal mode the log is rotated so that only records
+     * older than the capture are dropped once the snapshot is written.
+     * @param tasks live tasks to capture
+     * @return snapshot to pass to saveSnapshot
+     */
+    public Snapshot captureSnapshot(List<Task> tasks) {
+        List<Task> copies = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            copies.add(task.copy());
+        }
+        return beginSnapshot(copies);
+    }
+    
+    /**
+     * Writes a captured snapshot to tasks.json; safe to call from any thread.
+     * A snapshot captured before one that is already on disk is skipped.
+     * @return true if the snapshot was written or superseded, false on error
+     */
+    public boolean saveSnapshot(Snapshot snapshot) {
         try {
-            // Create backup of existing file if it exists
-            createBackup();
-            
-            // Convert tasks to JSON manually
-            String json = tasksToJson(tasks);
-            
-            // Write to file
-            try (FileWriter writer = new FileWriter(TASKS_FILE)) {
-                writer.write(json);
-                writer.flush();
+            if (commitSnapshot(snapshot)) {
+                System.out.println("✓ Successfully saved " + snapshot.size() + " tasks to " + TASKS_FILE);
             }
-            
-            System.out.println("✓ Successfully saved " + tasks.size() + " tasks to " + TASKS_FILE);
             return true;
             
         } catch (IOException e) {
+            // The previous tasks.json is left untouched when a write fails
             System.err.println("✗ Error saving tasks to file: " + e.getMessage());
-            restoreBackup(); // Try to restore backup if save failed
             return false;
         } catch (Exception e) {
             System.err.println("✗ Unexpected error during save: " + e.getMessage());
@@ -43,165 +147,465 @@ public class StorageHandler {
         }
     }
     
+    private Snapshot beginSnapshot(List<Task> tasks) {
+        long sequence = snapshotSequence.incrementAndGet();
+        if (journal != null) {
+            try {
+                journal.rotate(sequence);
+            } catch (IOException e) {
+                // Records stay in the active log; replaying them over the snapshot is harmless
+                System.err.println("⚠ Warning: Could not rotate journal: " + e.getMessage());
+            }
+        }
+        return new Snapshot(tasks, sequence);
+    }
+    
+    /**
+     * Writes the snapshot unless a newer one already landed, then drops the
+     * journal records it covers
+     * @return false if the snapshot was superseded
+     */
+    private boolean commitSnapshot(Snapshot snapshot) throws IOException {
+        synchronized (snapshotLock) {
+            if (snapshot.sequence <= writtenSequence) {
+                return false;
+            }
+            writeSnapshot(snapshot.tasks);
+            writtenSequence = snapshot.sequence;
+            
+            if (journal != null) {
+                journal.discardRotated(snapshot.sequence);
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Writes the snapshot file crash-safely (caller holds snapshotLock).
+     * Tasks are streamed to a temp file which is forced to disk and then
+     * atomically renamed over tasks.json, so readers only ever see the old
+     * or the new complete file.
+     */
+    private void writeSnapshot(List<Task> tasks) throws IOException {
+        Path target = Paths.get(TASKS_FILE);
+        Path temp = Paths.get(TEMP_FILE);
+        
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            TaskWriter writer = openWriter(channel, snapshotFormat);
+            for (Task task : tasks) {
+                writer.write(task);
+            }
+            writer.finish();
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        
+        moveIntoPlace(temp, target);
+    }
+    
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
     /**
      * Loads tasks from the tasks.json file
+     * In journal mode, logged changes are replayed on top of the snapshot.
      * @return List of tasks loaded from file, empty list if file doesn't exist or error occurs
      */
     public List<Task> loadTasks() {
+        List<Task> tasks = new ArrayList<>();
+        loadTasksInBatches(DEFAULT_LOAD_BATCH_SIZE, tasks::addAll);
+        return tasks;
+    }
+    
+    /**
+     * Streams tasks to a consumer in batches as they are parsed, so callers can
+     * use the first tasks before the whole file has been read. Runs on the
+     * calling thread; journaled changes are applied to each task on the way.
+     * If the file turns out to be damaged, loading stops after the last good task.
+     * A task whose id was already loaded is kept under a fresh id, since
+     * TaskManager holds one task per id; such repeats come last, once every
+     * id in use is known.
+     * @param batchSize maximum number of tasks per batch
+     * @param consumer receives each batch (the list is not reused)
+     * @return total number of tasks delivered
+     */
+    public int loadTasksInBatches(int batchSize, Consumer<List<Task>> consumer) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        
+        TaskJournal.Overlay overlay = readJournalOverlay();
+        List<Task> batch = new ArrayList<>(batchSize);
+        Set<Long> loadedIds = new HashSet<>();
+        List<Task> repeats = new ArrayList<>();
+        int delivered = 0;
         File file = new File(TASKS_FILE);
         
-        // Return empty list if file doesn't exist
         if (!file.exists()) {
             System.out.println("ℹ Tasks file not found. Starting with empty task list.");
-            return new ArrayList<>();
+        } else if (file.length() == 0) {
+            System.out.println("ℹ Tasks file is empty. Starting with empty task list.");
+        } else {
+            int parsed = 0;
+            try (TaskReader reader = openReader(file.toPath(), mappedReadThreshold)) {
+                Task task;
+                while ((task = reader.next()) != null) {
+                    parsed++;
+                    if (overlay != null && (task = overlay.apply(task)) == null) {
+                        continue; // deleted since the snapshot
+                    }
+                    if (!loadedIds.add(task.getId())) {
+                        repeats.add(task);
+                        continue;
+                    }
+                    batch.add(task);
+                    if (batch.size() >= batchSize) {
+                        consumer.accept(batch);
+                        delivered += batch.size();
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                System.out.println("✓ Successfully loaded " + parsed + " tasks from " + TASKS_FILE);
+            } catch (Exception e) {
+                System.err.println("✗ Error loading tasks from file after " + parsed + " tasks: " + e.getMessage());
+            }
         }
         
-        try {
-            // Read file content
-            StringBuilder content = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
+        if (overlay != null && !overlay.isEmpty()) {
+            for (Task task : overlay.getAddedTasks()) {
+                if (loadedIds.add(task.getId())) {
+                    batch.add(task);
+                } else {
+                    repeats.add(task);
                 }
             }
-            
-            // Check if file is empty
-            if (content.length() == 0) {
-                System.out.println("ℹ Tasks file is empty. Starting with empty task list.");
-                return new ArrayList<>();
-            }
-            
-            // Parse JSON manually
-            List<Task> tasks = jsonToTasks(content.toString());
-            
-            System.out.println("✓ Successfully loaded " + tasks.size() + " tasks from " + TASKS_FILE);
-            return tasks;
-            
-        } catch (Exception e) {
-            System.err.println("✗ Error loading tasks from file: " + e.getMessage());
-            return new ArrayList<>();
+            System.out.println("✓ Replayed " + overlay.getRecordCount() + " journal records from " + JOURNAL_FILE);
+        }
+        for (Task task : repeats) {
+            Task copy = task.copyWithNewId();
+            System.err.println("⚠ Warning: Task id " + task.getId() + " appears more than once in "
+                + TASKS_FILE + "; loaded the repeat as id " + copy.getId());
+            batch.add(copy);
         }
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+            delivered += batch.size();
+        }
+        return delivered;
     }
     
     /**
-     * Converts a list of tasks to JSON format
+     * Reads the journal's net changes, or returns null outside journal mode
      */
-    private String tasksToJson(List<Task> tasks) {
-        StringBuilder json = new StringBuilder();
-        json.append("[\n");
-        
-        for (int i = 0; i < tasks.size(); i++) {
-            Task task = tasks.get(i);
-            json.append("  {\n");
-            json.append("    \"title\": \"").append(escapeJson(task.getTitle())).append("\",\n");
-            json.append("    \"priority\": ").append(task.getPriority()).append(",\n");
-            json.append("    \"deadline\": \"").append(task.getDeadline().format(DATE_FORMATTER)).append("\",\n");
-            json.append("    \"completed\": ").append(task.isCompleted()).append("\n");
-            json.append("  }");
-            
-            if (i < tasks.size() - 1) {
-                json.append(",");
+    private TaskJournal.Overlay readJournalOverlay() {
+        if (journal == null) {
+            return null;
+        }
+        try {
+            return journal.readOverlay();
+        } catch (IOException e) {
+            System.err.println("✗ Error replaying journal: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Sets the encoding used by future snapshot writes
+     */
+    public void setSnapshotFormat(SnapshotFormat format) {
+        this.snapshotFormat = format;
+    }
+    
+    /**
+     * Gets the encoding used for snapshot writes
+     */
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+    
+    /**
+     * Detects the format of a snapshot file from its header
+     * @return BINARY if the file starts with the binary magic, JSON otherwise
+     */
+    public static SnapshotFormat detectFormat(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(TaskBinaryWriter.MAGIC.length);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the magic is buffered or the file ends
             }
-            json.append("\n");
+            header.flip();
+            return TaskBinaryReader.hasMagic(header) ? SnapshotFormat.BINARY : SnapshotFormat.JSON;
         }
-        
-        json.append("]");
-        return json.toString();
     }
     
     /**
-     * Converts JSON string to list of tasks
+     * Sets the snapshot size from which loads read through a memory mapping
+     * @param bytes minimum file size to map; Long.MAX_VALUE disables mapping
      */
-    private List<Task> jsonToTasks(String json) {
-        List<Task> tasks = new ArrayList<>();
-        
-        // Remove whitespace and newlines for easier parsing
-        json = json.replaceAll("\\s+", " ").trim();
+    public void setMappedReadThreshold(long bytes) {
+        this.mappedReadThreshold = bytes;
+    }
+    
+    /**
+     * Opens a reader for a snapshot file in whichever format it was written
+     */
+    public static TaskReader openReader(Path path) throws IOException {
+        return openReader(path, DEFAULT_MAPPED_READ_THRESHOLD);
+    }
+    
+    /**
+     * Opens a reader for a snapshot file, mapping it into memory when it is at
+     * least mappedThreshold bytes so records are parsed straight from the page
+     * cache instead of being copied through read buffers
+     */
+    public static TaskReader openReader(Path path, long mappedThreshold) throws IOException {
+        SnapshotFormat format = detectFormat(path);
+        long size = Files.size(path);
+        if (size >= mappedThreshold && size <= Integer.MAX_VALUE) {
+            return openMappedReader(path, format);
+        }
         
-        // Find all task objects in the JSON array
-        Pattern taskPattern = Pattern.compile("\\{[^}]+\\}");
-        Matcher taskMatcher = taskPattern.matcher(json);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return format == SnapshotFormat.BINARY ? new TaskBinaryReader(channel) : new TaskJsonReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    private static TaskReader openMappedReader(Path path, SnapshotFormat format) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
         
-        while (taskMatcher.find()) {
-            String taskJson = taskMatcher.group();
-            Task task = parseTaskFromJson(taskJson);
-            if (task != null) {
-                tasks.add(task);
-            }
+        TaskReader reader;
+        try {
+            reader = format == SnapshotFormat.BINARY ? new TaskBinaryReader(mapped) : new TaskJsonReader(mapped);
+        } catch (IOException e) {
+            unmap(mapped);
+            throw e;
         }
         
-        return tasks;
+        return new TaskReader() {
+            @Override
+            public Task next() throws IOException {
+                return reader.next();
+            }
+            
+            @Override
+            public void close() throws IOException {
+                reader.close();
+                unmap(mapped);
+            }
+        };
     }
     
     /**
-     * Parses a single task from JSON object string
+     * Releases a mapping right away where the JVM allows it; a live mapping
+     * would otherwise block replacing tasks.json on Windows until the next GC
      */
-    private Task parseTaskFromJson(String taskJson) {
+    private static void unmap(MappedByteBuffer buffer) {
         try {
-            // Extract values using regex patterns
-            String title = extractJsonValue(taskJson, "title");
-            String priorityStr = extractJsonValue(taskJson, "priority");
-            String deadlineStr = extractJsonValue(taskJson, "deadline");
-            String completedStr = extractJsonValue(taskJson, "completed");
-            
-            if (title == null || priorityStr == null || deadlineStr == null) {
-                System.err.println("⚠ Incomplete task data, skipping: " + taskJson);
-                return null;
-            }
-            
-            // Parse values
-            int priority = Integer.parseInt(priorityStr);
-            LocalDateTime deadline = LocalDateTime.parse(deadlineStr, DATE_FORMATTER);
-            boolean completed = Boolean.parseBoolean(completedStr != null ? completedStr : "false");
-            
-            // Create task
-            Task task = new Task(unescapeJson(title), priority, deadline);
-            task.setCompleted(completed);
-            
-            return task;
-            
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(field.get(null), buffer);
         } catch (Exception e) {
-            System.err.println("✗ Error parsing task: " + e.getMessage() + " - " + taskJson);
-            return null;
+            // Not available (e.g. Java 8): the mapping is released when collected
+        }
+    }
+    
+    private static TaskWriter openWriter(WritableByteChannel channel, SnapshotFormat format) throws IOException {
+        return format == SnapshotFormat.BINARY ? new TaskBinaryWriter(channel) : new TaskJsonWriter(channel);
+    }
+    
+    /**
+     * Converts a snapshot file between JSON and binary, one task at a time
+     * @param source existing snapshot in either format
+     * @param target file to write (replaced atomically)
+     * @param format encoding for the target
+     * @return number of tasks converted
+     */
+    public static int convertSnapshot(Path source, Path target, SnapshotFormat format) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        int count;
+        try (TaskReader reader = openReader(source);
+             FileChannel channel = FileChannel.open(temp,
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            TaskWriter writer = openWriter(channel, format);
+            Task task;
+            while ((task = reader.next()) != null) {
+                writer.write(task);
+            }
+            writer.finish();
+            channel.force(true);
+            count = writer.getCount();
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
         }
+        moveIntoPlace(temp, target);
+        return count;
     }
     
     /**
-     * Extracts a value from JSON object string
+     * Rewrites tasks.json in the given format and uses it for future saves
+     * @return true if the conversion succeeded
      */
-    private String extractJsonValue(String json, String key) {
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*\"?([^,}\"]+)\"?");
-        Matcher matcher = pattern.matcher(json);
-        
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    public boolean convertTasksFile(SnapshotFormat format) {
+        synchronized (snapshotLock) {
+            try {
+                if (fileExists()) {
+                    int count = convertSnapshot(Paths.get(TASKS_FILE), Paths.get(TASKS_FILE), format);
+                    System.out.println("✓ Converted " + count + " tasks in " + TASKS_FILE + " to " + format);
+                }
+                snapshotFormat = format;
+                return true;
+            } catch (IOException e) {
+                System.err.println("✗ Error converting tasks file: " + e.getMessage());
+                return false;
+            }
         }
-        return null;
     }
     
     /**
-     * Escapes special characters for JSON
+     * Switches to journal mode: mutations recorded through recordAdd/recordUpdate/
+     * recordComplete/recordDelete are appended to tasks.json.journal instead of
+     * rewriting the snapshot, and the journal is compacted into a new snapshot in
+     * the background once it grows past the threshold.
+     * @param compactionThresholdBytes journal size that triggers compaction
+     * @param snapshotSource supplies the current tasks when a compaction starts
+     * @return true if the journal was opened
      */
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                  .replace("\"", "\\\"")
-                  .replace("\n", "\\n")
-                  .replace("\r", "\\r")
-                  .replace("\t", "\\t");
+    public boolean enableJournal(long compactionThresholdBytes, Supplier<List<Task>> snapshotSource) {
+        if (journal != null) {
+            return true;
+        }
+        try {
+            this.journal = new TaskJournal(Paths.get(JOURNAL_FILE));
+            // Continue after logs left by an earlier run so they replay first
+            snapshotSequence.accumulateAndGet(journal.getLastRotatedSequence(), Math::max);
+            this.snapshotSource = snapshotSource;
+            this.compactionThreshold = compactionThresholdBytes;
+            this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            System.out.println("✓ Journal mode enabled (" + JOURNAL_FILE + ")");
+            return true;
+        } catch (IOException e) {
+            System.err.println("✗ Could not open journal, using full saves: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Holds back journal compaction while the snapshot source is incomplete,
+     * e.g. while tasks are still being loaded into it. Records are still
+     * appended; compaction resumes with the first one after it is released.
+     */
+    public void setCompactionSuspended(boolean suspended) {
+        this.compactionSuspended = suspended;
     }
     
     /**
-     * Unescapes JSON special characters
+     * Checks whether mutations are being journaled
      */
-    private String unescapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\\\", "\\")
-                  .replace("\\\"", "\"")
-                  .replace("\\n", "\n")
-                  .replace("\\r", "\r")
-                  .replace("\\t", "\t");
+    public boolean isJournalEnabled() {
+        return journal != null;
+    }
+    
+    /**
+     * Forces journaled records to disk
+     * @return true if they were forced, or there is no journal; false on error
+     */
+    public boolean syncJournal() {
+        if (journal == null) {
+            return true;
+        }
+        try {
+            journal.force();
+            return true;
+        } catch (IOException e) {
+            System.err.println("✗ Error syncing journal: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    // Journal a newly added task
+    public void recordAdd(Task task) {
+        recordMutation(TaskJournal.OP_ADD, task);
+    }
+    
+    // Journal an edited task (title, priority, deadline)
+    public void recordUpdate(Task task) {
+        recordMutation(TaskJournal.OP_UPDATE, task);
+    }
+    
+    // Journal a change of completion state
+    public void recordComplete(Task task) {
+        recordMutation(TaskJournal.OP_COMPLETE, task);
+    }
+    
+    // Journal the reminders shown for a task, so none is shown again after a restart
+    public void recordReminders(Task task) {
+        recordMutation(TaskJournal.OP_REMINDERS, task);
+    }
+    
+    // Journal a deleted task
+    public void recordDelete(Task task) {
+        recordMutation(TaskJournal.OP_DELETE, task);
+    }
+    
+    private void recordMutation(byte op, Task task) {
+        if (journal == null || task == null) {
+            return;
+        }
+        try {
+            journal.append(op, task);
+            compactIfNeeded();
+        } catch (IOException e) {
+            System.err.println("✗ Error writing journal record: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Starts a background compaction once the journal exceeds the threshold.
+     * The active log is rotated aside so new records keep flowing while the
+     * snapshot is written; the rotated log is dropped when the snapshot lands.
+     */
+    private void compactIfNeeded() throws IOException {
+        if (compactionPending || compactionSuspended || snapshotSource == null
+                || journal.size() < compactionThreshold) {
+            return;
+        }
+        
+        Snapshot snapshot = captureSnapshot(snapshotSource.get());
+        compactionPending = true;
+        compactionExecutor.execute(() -> {
+            try {
+                commitSnapshot(snapshot);
+                System.out.println("✓ Journal compacted into " + TASKS_FILE + " (" + snapshot.size() + " tasks)");
+            } catch (IOException e) {
+                // The rotated log is kept and replayed on the next start
+                System.err.println("✗ Journal compaction failed: " + e.getMessage());
+            } finally {
+                compactionPending = false;
+            }
+        });
     }
     
     /**
@@ -231,11 +635,8 @@ public class StorageHandler {
         
         List<Task> tasks = loadTasks();
         
-        // Clear existing tasks and add loaded ones
-        taskManager.clearAllTasks();
-        for (Task task : tasks) {
-            taskManager.addTask(task);
-        }
+        // Replace existing tasks with the loaded ones in one bulk operation
+        taskManager.replaceAll(tasks);
         
         return tasks.size();
     }
@@ -269,6 +670,14 @@ public class StorageHandler {
         }
         
         boolean deleted = file.delete();
+        if (deleted && journal != null) {
+            // Logged changes would otherwise resurrect the deleted tasks
+            try {
+                journal.reset();
+            } catch (IOException e) {
+                System.err.println("⚠ Warning: Could not clear journal: " + e.getMessage());
+            }
+        }
         if (deleted) {
             System.out.println("✓ Tasks file deleted successfully.");
         } else {
@@ -277,58 +686,6 @@ public class StorageHandler {
         return deleted;
     }
     
-    /**
-     * Creates a backup of the current tasks file
-     */
-    private void createBackup() {
-        File originalFile = new File(TASKS_FILE);
-        if (originalFile.exists()) {
-            try {
-                File backupFile = new File(TASKS_FILE + ".backup");
-                
-                // Copy content to backup
-                try (BufferedReader reader = new BufferedReader(new FileReader(originalFile));
-                     FileWriter writer = new FileWriter(backupFile)) {
-                    
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        writer.write(line + "\n");
-                    }
-                }
-                
-            } catch (IOException e) {
-                System.err.println("⚠ Warning: Could not create backup: " + e.getMessage());
-            }
-        }
-    }
-    
-    /**
-     * Restores the backup file if it exists
-     */
-    private void restoreBackup() {
-        File backupFile = new File(TASKS_FILE + ".backup");
-        if (backupFile.exists()) {
-            try {
-                File originalFile = new File(TASKS_FILE);
-                
-                // Copy backup content back to original
-                try (BufferedReader reader = new BufferedReader(new FileReader(backupFile));
-                     FileWriter writer = new FileWriter(originalFile)) {
-                    
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        writer.write(line + "\n");
-                    }
-                }
-                
-                System.out.println("✓ Backup restored successfully.");
-                
-            } catch (IOException e) {
-                System.err.println("✗ Failed to restore backup: " + e.getMessage());
-            }
-        }
-    }
-    
     /**
      * Gets information about the storage file
      * @return formatted string with file information
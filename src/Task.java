@@ -1,21 +1,45 @@
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Task {
+    // Source of unique task ids (used by TaskManager for O(1) lookup)
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+    
+    private final long id;
     private String title;
     private int priority;
     private LocalDateTime deadline;
     private boolean completed;
     
+    // Reminder thresholds already shown for the current deadline, one bit each
+    private byte remindersSent;
+    
     // Constructor
     public Task(String title, int priority, LocalDateTime deadline) {
+        this.id = NEXT_ID.getAndIncrement();
         this.title = title;
         this.priority = priority;
         this.deadline = deadline;
         this.completed = false; // Default to not completed
     }
     
+    // Constructor for restoring a persisted task with its original id
+    public Task(long id, String title, int priority, LocalDateTime deadline) {
+        this.id = id;
+        this.title = title;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.completed = false;
+        // Keep newly created ids clear of restored ones
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+    }
+    
     // Getter methods
+    public long getId() {
+        return id;
+    }
+    
     public String getTitle() {
         return title;
     }
@@ -42,6 +66,10 @@ public class Task {
     }
     
     public void setDeadline(LocalDateTime deadline) {
+        // A new deadline gets a fresh set of reminders
+        if (this.deadline != null && !this.deadline.equals(deadline)) {
+            remindersSent = 0;
+        }
         this.deadline = deadline;
     }
     
@@ -49,6 +77,41 @@ public class Task {
         this.completed = completed;
     }
     
+    // Reminder bookkeeping (threshold index 0-7, see ReminderScheduler)
+    public boolean isReminderSent(int threshold) {
+        return (remindersSent & (1 << threshold)) != 0;
+    }
+    
+    public void markReminderSent(int threshold) {
+        remindersSent |= 1 << threshold;
+    }
+    
+    // All reminder bits at once, for saving and restoring them
+    public byte getRemindersSent() {
+        return remindersSent;
+    }
+    
+    public void setRemindersSent(byte remindersSent) {
+        this.remindersSent = remindersSent;
+    }
+    
+    // Detached copy with the same id, e.g. for writing a snapshot off the EDT
+    public Task copy() {
+        Task copy = new Task(id, title, priority, deadline);
+        copy.completed = completed;
+        copy.remindersSent = remindersSent;
+        return copy;
+    }
+    
+    // Copy under a fresh id, e.g. to keep a task whose id is already taken
+    // (read through the getters, so views backed by other storage copy correctly)
+    public Task copyWithNewId() {
+        Task copy = new Task(getTitle(), getPriority(), getDeadline());
+        copy.completed = isCompleted();
+        copy.remindersSent = getRemindersSent();
+        return copy;
+    }
+    
     // toString() override
     @Override
     public String toString() {
@@ -0,0 +1,170 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Streaming reader for the binary snapshot format written by TaskBinaryWriter
+ */
+public class TaskBinaryReader implements StorageHandler.TaskReader {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private byte[] titleBytes = new byte[256];
+    private short version;
+    private boolean finished;
+    
+    public TaskBinaryReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        readHeader();
+    }
+    
+    /**
+     * Reads records directly from bytes already in memory, e.g. a
+     * memory-mapped snapshot; titles are the only per-task copies made
+     */
+    public TaskBinaryReader(ByteBuffer bytes) throws IOException {
+        this.channel = null;
+        this.buffer = bytes;
+        readHeader();
+    }
+    
+    /**
+     * Checks whether the given leading bytes identify a binary snapshot
+     */
+    public static boolean hasMagic(ByteBuffer header) {
+        if (header.remaining() < TaskBinaryWriter.MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < TaskBinaryWriter.MAGIC.length; i++) {
+            if (header.get(header.position() + i) != TaskBinaryWriter.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void readHeader() throws IOException {
+        ensure(8);
+        if (!hasMagic(buffer)) {
+            throw new IOException("Not a binary task snapshot");
+        }
+        buffer.position(buffer.position() + TaskBinaryWriter.MAGIC.length);
+        version = buffer.getShort();
+        buffer.getShort(); // flags, unused so far
+        // Version 1 lacks only the reminder byte
+        if (version != 1 && version != TaskBinaryWriter.VERSION) {
+            throw new IOException("Unsupported binary snapshot version " + version);
+        }
+    }
+    
+    @Override
+    public Task next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        
+        ensure(1);
+        byte tag = buffer.get();
+        if (tag == TaskBinaryWriter.TAG_END) {
+            finished = true;
+            return null;
+        }
+        if (tag != TaskBinaryWriter.TAG_TASK) {
+            throw new IOException("Corrupt binary snapshot: unknown record tag " + tag);
+        }
+        
+        long id = readVarLong();
+        ensure(1);
+        int packed = buffer.get() & 0xFF;
+        int priority = packed & TaskBinaryWriter.PRIORITY_ESCAPE;
+        if (priority == TaskBinaryWriter.PRIORITY_ESCAPE) {
+            ensure(4);
+            priority = buffer.getInt();
+        }
+        ensure(8);
+        LocalDateTime deadline = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+        
+        long length = readVarLong();
+        if (length < 0 || length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Corrupt binary snapshot: title length " + length);
+        }
+        String title = readTitle((int) length);
+        
+        Task task = new Task(id, title, priority, deadline);
+        task.setCompleted((packed & TaskBinaryWriter.COMPLETED_BIT) != 0);
+        if (version >= 2) {
+            ensure(1);
+            task.setRemindersSent(buffer.get());
+        }
+        return task;
+    }
+    
+    private String readTitle(int length) throws IOException {
+        ensure(length);
+        if (buffer.hasArray()) {
+            // Decode straight out of the heap buffer
+            String title = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return title;
+        }
+        if (titleBytes.length < length) {
+            titleBytes = new byte[Math.max(length, titleBytes.length * 2)];
+        }
+        buffer.get(titleBytes, 0, length);
+        return new String(titleBytes, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            ensure(1);
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt binary snapshot: malformed varint");
+    }
+    
+    /**
+     * Makes sure at least the given number of bytes are buffered
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (channel == null) {
+            throw new EOFException("Truncated binary snapshot");
+        }
+        if (bytes > buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(bytes);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Truncated binary snapshot");
+            }
+        }
+        buffer.flip();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
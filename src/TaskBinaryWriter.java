@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+
+/**
+ * Streaming writer for the compact binary snapshot format.
+ *
+ * Layout (all numbers big-endian):
+ *   header:  magic "TSKB", short version, short flags (0)
+ *   record:  byte tag (1), varint id, byte packed, long deadline, varint title length, UTF-8 title,
+ *            byte reminders sent (version 2 on)
+ *   end:     byte tag (0)
+ *
+ * The packed byte holds the priority in its low 7 bits and the completed flag
+ * in the high bit; a priority outside 0-126 is stored as 127 followed by an int.
+ * Deadlines are epoch seconds of the local date-time (UTC offset 0).
+ */
+public class TaskBinaryWriter implements StorageHandler.TaskWriter {
+    
+    static final byte[] MAGIC = {'T', 'S', 'K', 'B'};
+    static final short VERSION = 2;
+    static final byte TAG_TASK = 1;
+    static final byte TAG_END = 0;
+    static final int PRIORITY_ESCAPE = 0x7F;
+    static final int COMPLETED_BIT = 0x80;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private int count;
+    private boolean finished;
+    private boolean closed;
+    
+    public TaskBinaryWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer.put(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) 0);
+    }
+    
+    @Override
+    public void write(Task task) throws IOException {
+        byte[] title = task.getTitle() == null
+            ? new byte[0] : task.getTitle().getBytes(StandardCharsets.UTF_8);
+        
+        // tag + id + packed + escaped priority + deadline + length + reminders
+        ensureSpace(1 + 10 + 1 + 4 + 8 + 5 + 1);
+        buffer.put(TAG_TASK);
+        putVarLong(task.getId());
+        
+        int priority = task.getPriority();
+        boolean packable = priority >= 0 && priority < PRIORITY_ESCAPE;
+        int packed = packable ? priority : PRIORITY_ESCAPE;
+        if (task.isCompleted()) {
+            packed |= COMPLETED_BIT;
+        }
+        buffer.put((byte) packed);
+        if (!packable) {
+            buffer.putInt(priority);
+        }
+        
+        buffer.putLong(task.getDeadline().toEpochSecond(ZoneOffset.UTC));
+        putVarLong(title.length);
+        
+        if (title.length <= buffer.remaining()) {
+            buffer.put(title);
+        } else {
+            // Long titles bypass the buffer
+            drain();
+            writeFully(ByteBuffer.wrap(title));
+        }
+        ensureSpace(1);
+        buffer.put(task.getRemindersSent());
+        count++;
+    }
+    
+    @Override
+    public int getCount() {
+        return count;
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        ensureSpace(1);
+        buffer.put(TAG_END);
+        drain();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            finish();
+        } finally {
+            channel.close();
+        }
+    }
+    
+    private void putVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+    
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+    
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+    
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
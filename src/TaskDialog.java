@@ -376,14 +376,9 @@ public class TaskDialog extends JDialog {
             LocalDateTime deadline = LocalDateTime.ofInstant(
                 dateCal.toInstant(), java.time.ZoneId.systemDefault());
             
-            // Create or update task
-            if (task == null) {
-                task = new Task(title, priority, deadline);
-            } else {
-                task.setTitle(title);
-                task.setPriority(priority);
-                task.setDeadline(deadline);
-            }
+            // Always return a fresh task; edits to a queued task are applied by
+            // the caller through TaskManager so the queue order stays valid
+            task = new Task(title, priority, deadline);
             
             return true;
             
@@ -0,0 +1,406 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of task mutations.
+ * Each add/update/complete/delete is written as one small binary record so a
+ * single change costs O(1) I/O; the log is replayed on top of the last
+ * snapshot at startup and discarded once a newer snapshot has been written.
+ *
+ * Record layout: [int payload length][int CRC32 of payload][payload]
+ * Payload: [byte op][long task id][op-specific fields]
+ * Add/update records end with the task's reminder byte; records written
+ * before it was added simply end earlier.
+ */
+public class TaskJournal implements Closeable {
+    
+    public static final byte OP_ADD = 1;
+    public static final byte OP_UPDATE = 2;
+    public static final byte OP_COMPLETE = 3;
+    public static final byte OP_DELETE = 4;
+    public static final byte OP_REMINDERS = 5;
+    
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+    
+    private final Path logPath;
+    private final String rotatedPrefix;
+    private FileChannel channel;
+    
+    // Reused encoding buffers
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+    private final CRC32 crc = new CRC32();
+    
+    /**
+     * Opens (or creates) the journal at the given path
+     * @param logPath active log file; rotated logs live next to it as "<name>.<sequence>"
+     */
+    public TaskJournal(Path logPath) throws IOException {
+        this.logPath = logPath.toAbsolutePath();
+        this.rotatedPrefix = logPath.getFileName() + ".";
+        this.channel = openForAppend(logPath);
+        
+        // Drop a record torn by a crash so new appends stay readable
+        long valid = replayFile(logPath, null).validBytes;
+        if (valid < channel.size()) {
+            System.err.println("⚠ Truncating torn journal tail at byte " + valid);
+            channel.truncate(valid);
+        }
+    }
+    
+    /**
+     * Appends one mutation record
+     * @param op one of the OP_* constants
+     * @param task the task after the mutation was applied
+     */
+    public synchronized void append(byte op, Task task) throws IOException {
+        recordBytes.reset();
+        recordOut.writeByte(op);
+        recordOut.writeLong(task.getId());
+        
+        switch (op) {
+            case OP_ADD:
+            case OP_UPDATE:
+                byte[] title = task.getTitle().getBytes(StandardCharsets.UTF_8);
+                recordOut.writeInt(title.length);
+                recordOut.write(title);
+                recordOut.writeInt(task.getPriority());
+                recordOut.writeLong(task.getDeadline().toEpochSecond(ZoneOffset.UTC));
+                recordOut.writeBoolean(task.isCompleted());
+                recordOut.writeByte(task.getRemindersSent());
+                break;
+            case OP_COMPLETE:
+                recordOut.writeBoolean(task.isCompleted());
+                break;
+            case OP_REMINDERS:
+                recordOut.writeByte(task.getRemindersSent());
+                break;
+            case OP_DELETE:
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal operation: " + op);
+        }
+        recordOut.flush();
+        
+        byte[] payload = recordBytes.toByteArray();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        
+        // One write per record keeps a torn append confined to the tail
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+    
+    /**
+     * Forces appended records to disk. Appends only reach the OS, so a crash
+     * of the machine (not just the process) can lose records not yet forced.
+     */
+    public synchronized void force() throws IOException {
+        channel.force(false);
+    }
+    
+    /**
+     * Gets the size of the active log in bytes
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+    
+    /**
+     * Moves the active log aside under the given snapshot sequence and starts a
+     * new empty one. Rotated logs stay replayable until
+     * {@link #discardRotated(long)} is called for a snapshot covering them.
+     * An empty active log is left in place since it has nothing to cover.
+     * @param sequence sequence of the snapshot that captured the state so far
+     */
+    public synchronized void rotate(long sequence) throws IOException {
+        if (channel.size() == 0) {
+            return;
+        }
+        channel.close();
+        try {
+            Files.move(logPath, rotatedPath(sequence), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            channel = openForAppend(logPath);
+        }
+    }
+    
+    /**
+     * Deletes every rotated log up to and including the given sequence, once
+     * a snapshot with that sequence has been written
+     */
+    public synchronized void discardRotated(long sequence) throws IOException {
+        for (Map.Entry<Long, Path> rotated : listRotated().entrySet()) {
+            if (rotated.getKey() <= sequence) {
+                Files.deleteIfExists(rotated.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Drops every record; used when the snapshot itself is deleted
+     */
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        for (Path rotated : listRotated().values()) {
+            Files.deleteIfExists(rotated);
+        }
+    }
+    
+    /**
+     * Replays the rotated logs (oldest first) and then the active log into an
+     * overlay that is applied to snapshot tasks as they are streamed in
+     */
+    public synchronized Overlay readOverlay() throws IOException {
+        Overlay overlay = new Overlay();
+        for (Path rotated : listRotated().values()) {
+            overlay.records += replayFile(rotated, overlay).records;
+        }
+        if (Files.exists(logPath)) {
+            overlay.records += replayFile(logPath, overlay).records;
+        }
+        return overlay;
+    }
+    
+    /**
+     * Gets the highest sequence among rotated logs left on disk, or 0; new
+     * sequences must be larger so replay order matches rotation order
+     */
+    public synchronized long getLastRotatedSequence() throws IOException {
+        TreeMap<Long, Path> rotated = listRotated();
+        return rotated.isEmpty() ? 0 : rotated.lastKey();
+    }
+    
+    private Path rotatedPath(long sequence) {
+        return logPath.resolveSibling(rotatedPrefix + sequence);
+    }
+    
+    /**
+     * Finds the rotated logs next to the active one, ordered by sequence
+     */
+    private TreeMap<Long, Path> listRotated() throws IOException {
+        TreeMap<Long, Path> rotated = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logPath.getParent(), rotatedPrefix + "*")) {
+            for (Path file : files) {
+                String suffix = file.getFileName().toString().substring(rotatedPrefix.length());
+                try {
+                    rotated.put(Long.parseLong(suffix), file);
+                } catch (NumberFormatException e) {
+                    // Not a rotated log
+                }
+            }
+        }
+        return rotated;
+    }
+    
+    /**
+     * Net effect of the journaled records, keyed by task id
+     */
+    public static final class Overlay {
+        // Full task state from the latest add/update (in journal order)
+        private final Map<Long, Task> upserts = new LinkedHashMap<>();
+        // Completion and reminder changes for tasks that only exist in the snapshot
+        private final Map<Long, Boolean> completions = new HashMap<>();
+        private final Map<Long, Byte> reminders = new HashMap<>();
+        private final Set<Long> deleted = new HashSet<>();
+        private int records;
+        
+        /**
+         * Applies the journal to one snapshot task
+         * @return the task to keep (possibly updated), or null if it was deleted
+         */
+        public Task apply(Task task) {
+            long id = task.getId();
+            Task latest = upserts.remove(id);
+            if (latest != null) {
+                task.setTitle(latest.getTitle());
+                task.setPriority(latest.getPriority());
+                task.setDeadline(latest.getDeadline());
+                task.setCompleted(latest.isCompleted());
+                task.setRemindersSent(latest.getRemindersSent());
+                return task;
+            }
+            if (deleted.contains(id)) {
+                return null;
+            }
+            Boolean completed = completions.get(id);
+            if (completed != null) {
+                task.setCompleted(completed);
+            }
+            Byte sent = reminders.get(id);
+            if (sent != null) {
+                task.setRemindersSent(sent);
+            }
+            return task;
+        }
+        
+        /**
+         * Gets tasks added by the journal that were not in the snapshot;
+         * only complete once every snapshot task has gone through apply()
+         */
+        public Collection<Task> getAddedTasks() {
+            return upserts.values();
+        }
+        
+        public int getRecordCount() {
+            return records;
+        }
+        
+        public boolean isEmpty() {
+            return records == 0;
+        }
+        
+        private void upsert(Task task) {
+            upserts.put(task.getId(), task);
+            completions.remove(task.getId());
+            reminders.remove(task.getId());
+            deleted.remove(task.getId());
+        }
+        
+        private void complete(long id, boolean completed) {
+            Task latest = upserts.get(id);
+            if (latest != null) {
+                latest.setCompleted(completed);
+            } else {
+                completions.put(id, completed);
+            }
+        }
+        
+        private void remind(long id, byte sent) {
+            Task latest = upserts.get(id);
+            if (latest != null) {
+                latest.setRemindersSent(sent);
+            } else {
+                reminders.put(id, sent);
+            }
+        }
+        
+        private void delete(long id) {
+            upserts.remove(id);
+            completions.remove(id);
+            reminders.remove(id);
+            deleted.add(id);
+        }
+    }
+    
+    // Outcome of reading one log file
+    private static final class ReplayResult {
+        long validBytes;
+        int records;
+    }
+    
+    /**
+     * Reads records until the end of the file or the first damaged record
+     * @param overlay overlay to apply records to, or null to only validate
+     */
+    private static ReplayResult replayFile(Path path, Overlay overlay) throws IOException {
+        ReplayResult result = new ReplayResult();
+        try (InputStream in = Channels.newInputStream(FileChannel.open(path, StandardOpenOption.READ));
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024))) {
+            CRC32 checksum = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = data.readInt();
+                    int expected = data.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        System.err.println("⚠ Corrupt journal record in " + path.getFileName() + ", ignoring the rest");
+                        break;
+                    }
+                    payload = new byte[length];
+                    data.readFully(payload);
+                    checksum.reset();
+                    checksum.update(payload, 0, length);
+                    if ((int) checksum.getValue() != expected) {
+                        System.err.println("⚠ Journal checksum mismatch in " + path.getFileName() + ", ignoring the rest");
+                        break;
+                    }
+                } catch (EOFException e) {
+                    // Clean end of log, or a record torn by a crash mid-append
+                    break;
+                }
+                
+                if (overlay != null) {
+                    applyRecord(new DataInputStream(new ByteArrayInputStream(payload)), overlay);
+                }
+                result.records++;
+                result.validBytes += 8 + payload.length;
+            }
+        }
+        return result;
+    }
+    
+    private static void applyRecord(DataInputStream record, Overlay overlay) throws IOException {
+        byte op = record.readByte();
+        long id = record.readLong();
+        
+        switch (op) {
+            case OP_ADD:
+            case OP_UPDATE:
+                byte[] title = new byte[record.readInt()];
+                record.readFully(title);
+                int priority = record.readInt();
+                LocalDateTime deadline = LocalDateTime.ofEpochSecond(record.readLong(), 0, ZoneOffset.UTC);
+                Task task = new Task(id, new String(title, StandardCharsets.UTF_8), priority, deadline);
+                task.setCompleted(record.readBoolean());
+                if (record.available() > 0) {
+                    task.setRemindersSent(record.readByte());
+                }
+                overlay.upsert(task);
+                break;
+            case OP_COMPLETE:
+                overlay.complete(id, record.readBoolean());
+                break;
+            case OP_REMINDERS:
+                overlay.remind(id, record.readByte());
+                break;
+            case OP_DELETE:
+                overlay.delete(id);
+                break;
+            default:
+                throw new IOException("Unknown journal operation: " + op);
+        }
+    }
+    
+    private static FileChannel openForAppend(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
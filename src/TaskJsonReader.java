@@ -0,0 +1,467 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streaming reader for the tasks.json format.
+ * Tokenizes the JSON array one character buffer at a time, so the whole file
+ * is never held in memory and no regular expressions are involved.
+ */
+public class TaskJsonReader implements StorageHandler.TaskReader {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    // Exactly one source is set: a channel reader, or bytes already in memory
+    private final Reader reader;
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    private boolean flushed;
+    
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long offset;
+    
+    // Reused scratch space for string values
+    private final StringBuilder text = new StringBuilder(64);
+    
+    private boolean started;
+    private boolean finished;
+    
+    public TaskJsonReader(ReadableByteChannel channel) {
+        this.reader = Channels.newReader(channel, newDecoder(), BUFFER_SIZE);
+        this.bytes = null;
+        this.decoder = null;
+    }
+    
+    /**
+     * Reads tasks from bytes already in memory, e.g. a memory-mapped snapshot.
+     * Bytes are decoded one buffer at a time, so the file is never copied into
+     * a char[] of its own size.
+     */
+    public TaskJsonReader(ByteBuffer bytes) {
+        this.reader = null;
+        this.bytes = bytes;
+        this.decoder = newDecoder();
+    }
+    
+    private static CharsetDecoder newDecoder() {
+        return StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    
+    /**
+     * Reads the next task from the array
+     * @return the next task, or null once the end of the array is reached
+     * @throws IOException if the input is not a JSON array of objects
+     */
+    @Override
+    public Task next() throws IOException {
+        while (true) {
+            if (finished) {
+                return null;
+            }
+            
+            int c = nextToken();
+            if (!started) {
+                if (c == -1) {
+                    // Empty input is treated as an empty list
+                    finished = true;
+                    return null;
+                }
+                expect(c, '[');
+                started = true;
+                c = nextToken();
+                if (c == ']') {
+                    finished = true;
+                    return null;
+                }
+            } else {
+                if (c == ']') {
+                    finished = true;
+                    return null;
+                }
+                expect(c, ',');
+                c = nextToken();
+            }
+            
+            expect(c, '{');
+            Task task = readTask();
+            if (task != null) {
+                return task;
+            }
+            // Invalid entries are skipped, keep reading
+        }
+    }
+    
+    /**
+     * Parses the members of one task object (opening brace already consumed)
+     */
+    private Task readTask() throws IOException {
+        long id = -1;
+        String title = null;
+        Integer priority = null;
+        String deadlineStr = null;
+        boolean completed = false;
+        Integer remindersSent = null;
+        
+        int c = nextToken();
+        if (c != '}') {
+            while (true) {
+                expect(c, '"');
+                String key = readString();
+                expect(nextToken(), ':');
+                
+                switch (key) {
+                    case "id":
+                        Long parsedId = readNullableLong();
+                        id = parsedId != null ? parsedId : -1;
+                        break;
+                    case "title":
+                        title = readNullableString();
+                        break;
+                    case "priority":
+                        priority = readNullableInt();
+                        break;
+                    case "deadline":
+                        deadlineStr = readNullableString();
+                        break;
+                    case "completed":
+                        completed = readBoolean();
+                        break;
+                    case "remindersSent":
+                        remindersSent = readNullableInt();
+                        break;
+                    default:
+                        skipValue();
+                }
+                
+                c = nextToken();
+                if (c == '}') {
+                    break;
+                }
+                expect(c, ',');
+                c = nextToken();
+            }
+        }
+        
+        if (title == null || priority == null || deadlineStr == null) {
+            System.err.println("⚠ Incomplete task data, skipping entry before offset " + offset());
+            return null;
+        }
+        
+        LocalDateTime deadline = parseDeadline(deadlineStr);
+        if (deadline == null) {
+            System.err.println("✗ Error parsing task: invalid deadline '" + deadlineStr + "' - " + title);
+            return null;
+        }
+        
+        // Files written before ids were persisted get fresh ids
+        Task task = id > 0 ? new Task(id, title, priority, deadline) : new Task(title, priority, deadline);
+        task.setCompleted(completed);
+        if (remindersSent != null) {
+            task.setRemindersSent(remindersSent.byteValue());
+        }
+        return task;
+    }
+    
+    private String readNullableString() throws IOException {
+        int c = nextToken();
+        if (c == 'n') {
+            readLiteral("ull");
+            return null;
+        }
+        expect(c, '"');
+        return readString();
+    }
+    
+    private Integer readNullableInt() throws IOException {
+        Long value = readNullableLong();
+        if (value == null) {
+            return null;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw syntaxError("Number out of range");
+        }
+        return value.intValue();
+    }
+    
+    private Long readNullableLong() throws IOException {
+        int c = nextToken();
+        if (c == 'n') {
+            readLiteral("ull");
+            return null;
+        }
+        // Tolerate numbers written as strings
+        boolean quoted = c == '"';
+        if (quoted) {
+            c = read();
+        }
+        boolean negative = c == '-';
+        if (negative) {
+            c = read();
+        }
+        if (c < '0' || c > '9') {
+            throw syntaxError("Expected a number");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                throw syntaxError("Number out of range");
+            }
+            value = value * 10 + (c - '0');
+            c = read();
+        }
+        if (quoted) {
+            expect(c, '"');
+        } else if (c != -1) {
+            unread();
+        }
+        return negative ? -value : value;
+    }
+    
+    private boolean readBoolean() throws IOException {
+        int c = nextToken();
+        switch (c) {
+            case 't':
+                readLiteral("rue");
+                return true;
+            case 'f':
+                readLiteral("alse");
+                return false;
+            case 'n':
+                readLiteral("ull");
+                return false;
+            case '"':
+                return Boolean.parseBoolean(readString());
+            default:
+                throw syntaxError("Expected a boolean");
+        }
+    }
+    
+    /**
+     * Reads a string body (opening quote already consumed), resolving escapes
+     */
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            // Copy plain runs straight out of the buffer
+            int start = position;
+            while (position < limit) {
+                char ch = buffer[position];
+                if (ch == '"' || ch == '\\') {
+                    break;
+                }
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            
+            int c = read();
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == '\\') {
+                text.append(readEscape());
+            } else {
+                // The buffer was drained mid-run; keep the refilled character
+                text.append((char) c);
+            }
+        }
+    }
+    
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+    
+    /**
+     * Skips over a value of any type, including nested objects and arrays
+     */
+    private void skipValue() throws IOException {
+        int c = nextToken();
+        switch (c) {
+            case '"':
+                readString();
+                return;
+            case '{':
+            case '[':
+                int depth = 1;
+                while (depth > 0) {
+                    c = read();
+                    if (c == -1) {
+                        throw syntaxError("Unterminated value");
+                    } else if (c == '"') {
+                        readString();
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                }
+                return;
+            default:
+                // Number or literal: consume up to the next delimiter
+                while (c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c)) {
+                    c = read();
+                }
+                if (c != -1) {
+                    unread();
+                }
+        }
+    }
+    
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw syntaxError("Invalid literal");
+            }
+        }
+    }
+    
+    /**
+     * Parses "yyyy-MM-dd HH:mm:ss" (or without seconds) without a formatter
+     */
+    static LocalDateTime parseDeadline(String value) {
+        int length = value.length();
+        if ((length == 19 || length == 16)
+                && value.charAt(4) == '-' && value.charAt(7) == '-'
+                && value.charAt(10) == ' ' && value.charAt(13) == ':'
+                && (length == 16 || value.charAt(16) == ':')) {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 2);
+            int day = digits(value, 8, 2);
+            int hour = digits(value, 11, 2);
+            int minute = digits(value, 14, 2);
+            int second = length == 19 ? digits(value, 17, 2) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second);
+                } catch (Exception e) {
+                    return null;
+                }
+            }
+        }
+        
+        try {
+            return LocalDateTime.parse(value, DATE_FORMATTER);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    private static int digits(String value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char ch = value.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            result = result * 10 + (ch - '0');
+        }
+        return result;
+    }
+    
+    private int nextToken() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && isWhitespace(c));
+        return c;
+    }
+    
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+    
+    private int read() throws IOException {
+        if (position >= limit) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+    
+    // Step back one character; only valid directly after a successful read()
+    private void unread() {
+        position--;
+    }
+    
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        int count = reader != null ? reader.read(buffer, 0, buffer.length) : decodeBytes();
+        if (count <= 0) {
+            return false;
+        }
+        limit = count;
+        return true;
+    }
+    
+    private int decodeBytes() {
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        decoder.decode(bytes, chars, true);
+        if (!bytes.hasRemaining() && !flushed && chars.hasRemaining()) {
+            flushed = true;
+            decoder.flush(chars);
+        }
+        return chars.position();
+    }
+    
+    private long offset() {
+        return offset + position;
+    }
+    
+    private void expect(int actual, char expected) throws IOException {
+        if (actual != expected) {
+            throw syntaxError("Expected '" + expected + "' but found "
+                + (actual == -1 ? "end of file" : "'" + (char) actual + "'"));
+        }
+    }
+    
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at character " + offset());
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+}
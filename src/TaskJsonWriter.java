@@ -0,0 +1,164 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Streaming writer for the tasks.json format.
+ * Tasks are encoded one at a time into a buffered channel writer, so saving
+ * never builds the whole document as a single String.
+ */
+public class TaskJsonWriter implements StorageHandler.TaskWriter {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final Writer writer;
+    private int count;
+    private boolean finished;
+    private boolean closed;
+    
+    public TaskJsonWriter(WritableByteChannel channel) throws IOException {
+        this.writer = new BufferedWriter(
+            Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        writer.write('[');
+    }
+    
+    /**
+     * Appends one task to the array
+     */
+    @Override
+    public void write(Task task) throws IOException {
+        if (count > 0) {
+            writer.write(',');
+        }
+        writer.write("\n  {\n    \"id\": ");
+        writer.write(Long.toString(task.getId()));
+        writer.write(",\n    \"title\": \"");
+        writeEscaped(task.getTitle());
+        writer.write("\",\n    \"priority\": ");
+        writer.write(Integer.toString(task.getPriority()));
+        writer.write(",\n    \"deadline\": \"");
+        writeDeadline(task.getDeadline());
+        writer.write("\",\n    \"completed\": ");
+        writer.write(task.isCompleted() ? "true" : "false");
+        // Only tasks that have shown a reminder carry the field
+        if (task.getRemindersSent() != 0) {
+            writer.write(",\n    \"remindersSent\": ");
+            writer.write(Integer.toString(task.getRemindersSent() & 0xFF));
+        }
+        writer.write("\n  }");
+        count++;
+    }
+    
+    /**
+     * Gets the number of tasks written so far
+     */
+    @Override
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * Writes the escaped string, copying unescaped runs in one call
+     */
+    private void writeEscaped(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            String replacement;
+            switch (ch) {
+                case '"': replacement = "\\\""; break;
+                case '\\': replacement = "\\\\"; break;
+                case '\n': replacement = "\\n"; break;
+                case '\r': replacement = "\\r"; break;
+                case '\t': replacement = "\\t"; break;
+                default:
+                    if (ch >= 0x20) {
+                        continue;
+                    }
+                    replacement = String.format("\\u%04x", (int) ch);
+            }
+            writer.write(value, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+        }
+        writer.write(value, start, length - start);
+    }
+    
+    /**
+     * Writes the deadline as "yyyy-MM-dd HH:mm:ss" without a formatter
+     */
+    private void writeDeadline(LocalDateTime deadline) throws IOException {
+        writePadded(deadline.getYear(), 4);
+        writer.write('-');
+        writePadded(deadline.getMonthValue(), 2);
+        writer.write('-');
+        writePadded(deadline.getDayOfMonth(), 2);
+        writer.write(' ');
+        writePadded(deadline.getHour(), 2);
+        writer.write(':');
+        writePadded(deadline.getMinute(), 2);
+        writer.write(':');
+        writePadded(deadline.getSecond(), 2);
+    }
+    
+    private void writePadded(int value, int width) throws IOException {
+        if (value < 0) {
+            // Out of the format's range; fall back to the plain number
+            writer.write(Integer.toString(value));
+            return;
+        }
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        if (value >= divisor * 10) {
+            writer.write(Integer.toString(value));
+            return;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            writer.write('0' + (value / divisor) % 10);
+        }
+    }
+    
+    /**
+     * Flushes buffered output to the channel without closing it
+     */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+    
+    /**
+     * Terminates the array and flushes everything to the channel, leaving it
+     * open so the caller can force it to disk
+     */
+    @Override
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        writer.write(count > 0 ? "\n]" : "]");
+        writer.flush();
+    }
+    
+    /**
+     * Terminates the array and closes the underlying channel
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finish();
+        writer.close();
+    }
+}
@@ -1,16 +1,384 @@
-import java.util.PriorityQueue;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class TaskManager {
-    private PriorityQueue<Task> taskQueue;
+    // Indexed binary heap: every queued task has a node that remembers its
+    // slot in the heap array, so removal and re-ordering are O(log n)
+    private Node[] heap;
+    private int size;
+    private final Map<Long, Node> nodesById;
+    private final Comparator<Task> taskComparator;
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<PositionListener> positionListeners = new CopyOnWriteArrayList<>();
+    
+    // Heap slots written by the mutation in progress, reported once it completes;
+    // a bulk operation reports a reset instead and records none
+    private int[] changedSlots = new int[16];
+    private int changedCount;
+    private boolean bulkChange;
+    
+    // Secondary indexes, kept in step with the heap on every mutation:
+    // one bucket per priority (1-10) ordered by deadline, so walking the buckets
+    // from 10 down yields queue order; and the pending/completed split, each
+    // ordered by deadline for range scans
+    private final NavigableSet<Node>[] priorityBuckets;
+    private final NavigableSet<Node> otherPriorities;
+    private final NavigableSet<Node> pendingByDeadline;
+    private final NavigableSet<Node> completedByDeadline;
+    private final TitleIndex titleIndex = new TitleIndex();
+    
+    // Index changes so far, so sorted view iterators can detect a mutation
+    private int modCount;
+    
+    // Sorted views, created on first use; they read the indexes, so they stay current
+    private final SortedView[] sortedViews = new SortedView[SortOrder.values().length];
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    // Priorities with a bucket of their own; others share one set
+    public static final int MIN_PRIORITY = 1;
+    public static final int MAX_PRIORITY = 10;
+    
+    // Layout of Node.sortKey, the queue order packed into one long: the
+    // inverted priority in bits 40-62, the deadline's epoch second (offset to
+    // stay positive) in bits 1-39, and bit 0 set when the key cannot order the
+    // task exactly (a sub-second deadline, or a value outside the fields)
+    private static final int KEY_SECOND_BITS = 39;
+    private static final long KEY_SECOND_OFFSET = 1L << (KEY_SECOND_BITS - 1);
+    private static final long KEY_SECOND_LIMIT = (1L << KEY_SECOND_BITS) - 1;
+    private static final long KEY_PRIORITY_OFFSET = 1L << 22;
+    private static final long KEY_PRIORITY_LIMIT = (1L << 23) - 1;
+    
+    // Index order: deadline (earliest first), then id
+    private static final Comparator<Node> BY_DEADLINE = new Comparator<Node>() {
+        @Override
+        public int compare(Node n1, Node n2) {
+            int deadlineComparison = n1.deadline.compareTo(n2.deadline);
+            return deadlineComparison != 0 ? deadlineComparison : Long.compare(n1.id, n2.id);
+        }
+    };
+    
+    // Queue order on indexed values: priority (highest first), then BY_DEADLINE
+    private static final Comparator<Node> BY_PRIORITY = new Comparator<Node>() {
+        @Override
+        public int compare(Node n1, Node n2) {
+            int priorityComparison = Integer.compare(n2.priority, n1.priority);
+            return priorityComparison != 0 ? priorityComparison : BY_DEADLINE.compare(n1, n2);
+        }
+    };
+    
+    /**
+     * Receives changes made through this TaskManager, on the thread that made them
+     */
+    public interface TaskListener {
+        void taskAdded(Task task);
+        
+        // Title, priority, deadline or completion changed
+        void taskUpdated(Task task);
+        
+        void taskRemoved(Task task);
+        
+        void tasksCleared();
+        
+        // Several tasks added, changed or removed by one bulk operation
+        // (addAll, replaceAll, completeAll, updateAll, removeIf); by default
+        // reported to the single-task methods one by one
+        default void tasksAdded(List<Task> tasks) {
+            for (Task task : tasks) {
+                taskAdded(task);
+            }
+        }
+        
+        default void tasksUpdated(List<Task> tasks) {
+            for (Task task : tasks) {
+                taskUpdated(task);
+            }
+        }
+        
+        default void tasksRemoved(List<Task> tasks) {
+            for (Task task : tasks) {
+                taskRemoved(task);
+            }
+        }
+        
+        // Every task replaced by the given ones (replaceAll); by default
+        // reported as a clear followed by a bulk add
+        default void tasksReplaced(List<Task> tasks) {
+            tasksCleared();
+            tasksAdded(tasks);
+        }
+    }
+    
+    /**
+     * Receives changes to queue positions (heap slots: the order of getAllTasks
+     * and getTaskAt) once each mutation has completed, on the thread that made
+     * it. A single mutation touches O(log n) positions; ranges are inclusive.
+     */
+    public interface PositionListener {
+        // New positions at the end of the queue
+        void positionsInserted(int first, int last);
+        
+        // Positions dropped from the end of the queue
+        void positionsRemoved(int first, int last);
+        
+        // Positions now holding another task, or a task that changed
+        void positionsChanged(int first, int last);
+        
+        // Every position may have changed
+        void positionsReset();
+    }
+    
+    /**
+     * Orders in which sortedView can walk the tasks
+     */
+    public enum SortOrder {
+        // Queue order: priority (highest first), then deadline (earliest first)
+        PRIORITY,
+        // Deadline (earliest first), pending and completed tasks together
+        DEADLINE
+    }
+    
+    /**
+     * Read-only view of the queued tasks in a sort order, read straight from
+     * the secondary indexes: nothing is copied or sorted, and the view stays
+     * current as each mutation updates the indexes in O(log n). Iterators
+     * throw ConcurrentModificationException if the TaskManager is changed
+     * while they are in use; the cursor methods (first, next, previous) work
+     * across mutations, so a walk can resume after the task it stopped at.
+     * Ties are broken by task id.
+     */
+    public final class SortedView implements Iterable<Task> {
+        private final SortOrder order;
+        
+        // Index sets holding the tasks in this order, one after another
+        private final List<NavigableSet<Node>> parts;
+        
+        private SortedView(SortOrder order) {
+            this.order = order;
+            this.parts = order == SortOrder.PRIORITY
+                ? priorityParts(Integer.MIN_VALUE, Integer.MAX_VALUE)
+                : Arrays.asList(pendingByDeadline, completedByDeadline);
+        }
+        
+        public SortOrder getOrder() {
+            return order;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        public boolean isEmpty() {
+            return size == 0;
+        }
+        
+        // Get the first task in this order, or null if there are none
+        public Task first() {
+            return size == 0 ? null : iterator().next();
+        }
+        
+        // Get the last task in this order, or null if there are none
+        public Task last() {
+            Node last = null;
+            for (NavigableSet<Node> part : parts) {
+                if (!part.isEmpty() && (last == null || order == SortOrder.PRIORITY || compare(part.last(), last) > 0)) {
+                    last = part.last();
+                }
+            }
+            return last == null ? null : last.task;
+        }
+        
+        /**
+         * Gets the task that follows the given one in this order. The task
+         * does not have to be queued any more: its current priority, deadline
+         * and id locate where it would be.
+         * @return The next task, or null if the given one is the last
+         */
+        public Task next(Task task) {
+            Node key = keyOf(task);
+            if (order == SortOrder.DEADLINE) {
+                Node pending = parts.get(0).higher(key);
+                Node completed = parts.get(1).higher(key);
+                Node next = pending == null || (completed != null && compare(completed, pending) < 0) ? completed : pending;
+                return next == null ? null : next.task;
+            }
+            int first = partOf(key);
+            Node next = parts.get(first).higher(key);
+            for (int p = first + 1; next == null && p < parts.size(); p++) {
+                next = parts.get(p).isEmpty() ? null : parts.get(p).first();
+            }
+            return next == null ? null : next.task;
+        }
+        
+        /**
+         * Gets the task that precedes the given one in this order (located as in next)
+         * @return The previous task, or null if the given one is the first
+         */
+        public Task previous(Task task) {
+            Node key = keyOf(task);
+            if (order == SortOrder.DEADLINE) {
+                Node pending = parts.get(0).lower(key);
+                Node completed = parts.get(1).lower(key);
+                Node previous = pending == null || (completed != null && compare(completed, pending) > 0) ? completed : pending;
+                return previous == null ? null : previous.task;
+            }
+            int last = partOf(key);
+            Node previous = parts.get(last).lower(key);
+            for (int p = last - 1; previous == null && p >= 0; p--) {
+                previous = parts.get(p).isEmpty() ? null : parts.get(p).last();
+            }
+            return previous == null ? null : previous.task;
+        }
+        
+        @Override
+        public Iterator<Task> iterator() {
+            return checked(order == SortOrder.PRIORITY
+                ? tasksOf(parts) : merged(parts.get(0), parts.get(1))).iterator();
+        }
+        
+        /**
+         * Walks the tasks from the given one (located as in next) to the end
+         * @param inclusive whether to start with the given task itself
+         */
+        public Iterable<Task> from(Task start, boolean inclusive) {
+            Node key = keyOf(start);
+            if (order == SortOrder.DEADLINE) {
+                NavigableSet<Node> pending = parts.get(0).tailSet(key, inclusive);
+                NavigableSet<Node> completed = parts.get(1).tailSet(key, inclusive);
+                return checked(() -> merged(pending, completed).iterator());
+            }
+            int first = partOf(key);
+            List<NavigableSet<Node>> tail = new ArrayList<>(parts.size() - first);
+            tail.add(parts.get(first).tailSet(key, inclusive));
+            tail.addAll(parts.subList(first + 1, parts.size()));
+            return checked(tasksOf(tail));
+        }
+        
+        /**
+         * Walks the tasks between two tasks (each located as in next)
+         */
+        public Iterable<Task> range(Task from, boolean fromInclusive, Task to, boolean toInclusive) {
+            Node end = keyOf(to);
+            Iterable<Task> tail = from(from, fromInclusive);
+            return () -> new Iterator<Task>() {
+                private final Iterator<Task> tasks = tail.iterator();
+                private Task next = advance();
+                
+                private Task advance() {
+                    if (!tasks.hasNext()) {
+                        return null;
+                    }
+                    Task task = tasks.next();
+                    int comparison = compare(keyOf(task), end);
+                    return comparison < 0 || (comparison == 0 && toInclusive) ? task : null;
+                }
+                
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+                
+                @Override
+                public Task next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Task task = next;
+                    next = advance();
+                    return task;
+                }
+            };
+        }
+        
+        /**
+         * Gets the tasks that follow the given one, for paging through a long
+         * list in this order; pass the last task of one page to get the next
+         * @param after Task before the page, or null for the first page
+         * @param limit Maximum number of tasks
+         */
+        public List<Task> page(Task after, int limit) {
+            List<Task> result = new ArrayList<>(Math.max(0, Math.min(limit, size)));
+            if (limit <= 0) {
+                return result;
+            }
+            for (Task task : after == null ? this : from(after, false)) {
+                result.add(task);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+            return result;
+        }
+        
+        private int compare(Node n1, Node n2) {
+            return order == SortOrder.PRIORITY ? BY_PRIORITY.compare(n1, n2) : BY_DEADLINE.compare(n1, n2);
+        }
+        
+        // Index of the part holding a priority (PRIORITY order only)
+        private int partOf(Node key) {
+            if (key.priority > MAX_PRIORITY) {
+                return 0;
+            }
+            if (key.priority < MIN_PRIORITY) {
+                return parts.size() - 1;
+            }
+            return 1 + MAX_PRIORITY - key.priority;
+        }
+    }
+    
+    // Heap node (handle) pairing a task with its current position, its sort
+    // key in the heap and the values it is filed under in the secondary indexes
+    private static final class Node {
+        final Task task;
+        final long id;
+        int index;
+        long sortKey;
+        int priority;
+        LocalDateTime deadline;
+        boolean completed;
+        
+        Node(Task task, int index) {
+            this.task = task;
+            this.id = task.getId();
+            this.index = index;
+            this.sortKey = sortKey(task);
+        }
+        
+        // Search key for index range scans
+        Node(int priority, LocalDateTime deadline, long id) {
+            this.task = null;
+            this.id = id;
+            this.index = -1;
+            this.priority = priority;
+            this.deadline = deadline;
+        }
+    }
     
     // Constructor
     public TaskManager() {
-        // Create PriorityQueue with custom comparator
-        // First compare by priority (highest first), then by deadline (earliest first)
-        this.taskQueue = new PriorityQueue<>(new Comparator<Task>() {
+        // First compare by priority (highest first), then by deadline (earliest first);
+        // the heap compares sort keys and only needs this where they tie inexactly
+        this.taskComparator = new Comparator<Task>() {
             @Override
             public int compare(Task t1, Task t2) {
                 // Compare by priority first (higher priority comes first)
@@ -21,68 +389,1102 @@ public class TaskManager {
                 // If priorities are equal, compare by deadline (earlier deadline comes first)
                 return t1.getDeadline().compareTo(t2.getDeadline());
             }
-        });
+        };
+        this.heap = new Node[INITIAL_CAPACITY];
+        this.size = 0;
+        this.nodesById = new HashMap<>();
+        
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        NavigableSet<Node>[] buckets = new NavigableSet[MAX_PRIORITY - MIN_PRIORITY + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new TreeSet<>(BY_DEADLINE);
+        }
+        this.priorityBuckets = buckets;
+        this.otherPriorities = new TreeSet<>(BY_PRIORITY);
+        this.pendingByDeadline = new TreeSet<>(BY_DEADLINE);
+        this.completedByDeadline = new TreeSet<>(BY_DEADLINE);
     }
     
-    // Add a task to the queue
+    // Add a task to the queue (re-positions it if it is already queued); ids are
+    // unique, so another task with a queued id is rejected
     public void addTask(Task task) {
-        taskQueue.offer(task);
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        Node existing = nodesById.get(task.getId());
+        if (existing != null) {
+            if (existing.task != task) {
+                throw new IllegalArgumentException("Another task with id " + task.getId() + " is already queued");
+            }
+            updateTask(task);
+            return;
+        }
+        
+        ensureCapacity(size + 1);
+        Node node = new Node(task, size);
+        heap[size++] = node;
+        nodesById.put(task.getId(), node);
+        siftUp(node.index);
+        index(node);
+        
+        firePositionChanges(size - 1, -1);
+        for (TaskListener listener : listeners) {
+            listener.taskAdded(task);
+        }
     }
     
     // Remove and return the highest priority task
     public Task getNextTask() {
-        return taskQueue.poll();
+        if (size == 0) {
+            return null;
+        }
+        return removeAt(0);
     }
     
     // Peek at the highest priority task without removing it
     public Task peekNextTask() {
-        return taskQueue.peek();
+        return size == 0 ? null : heap[0].task;
     }
     
     // Remove a specific task from the queue
     public boolean removeTask(Task task) {
-        return taskQueue.remove(task);
+        if (task == null) {
+            return false;
+        }
+        Node node = nodesById.get(task.getId());
+        if (node == null || node.task != task) {
+            return false;
+        }
+        removeAt(node.index);
+        return true;
+    }
+    
+    // Remove the task with the given id, returning it (or null if not queued)
+    public Task removeById(long id) {
+        Node node = nodesById.get(id);
+        if (node == null) {
+            return null;
+        }
+        return removeAt(node.index);
+    }
+    
+    // Look up a queued task by id in O(1)
+    public Task findById(long id) {
+        Node node = nodesById.get(id);
+        return node == null ? null : node.task;
+    }
+    
+    // Check whether this exact task is queued
+    public boolean containsTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        Node node = nodesById.get(task.getId());
+        return node != null && node.task == task;
+    }
+    
+    // Restore queue order after a queued task's priority or deadline was changed in place
+    public boolean updateTask(Task task) {
+        if (task == null) {
+            return false;
+        }
+        Node node = nodesById.get(task.getId());
+        if (node == null || node.task != task) {
+            return false;
+        }
+        node.sortKey = sortKey(task);
+        reposition(node.index);
+        reindex(node);
+        firePositionChanges(-1, -1);
+        fireTaskUpdated(task);
+        return true;
+    }
+    
+    // Apply new values to a queued task and move it to its new position
+    public boolean updateTask(Task task, String title, int priority, LocalDateTime deadline) {
+        if (!containsTask(task)) {
+            return false;
+        }
+        task.setTitle(title);
+        task.setPriority(priority);
+        task.setDeadline(deadline);
+        return updateTask(task);
+    }
+    
+    // Mark a queued task completed or pending (completion does not affect queue order)
+    public boolean setTaskCompleted(Task task, boolean completed) {
+        if (!containsTask(task)) {
+            return false;
+        }
+        task.setCompleted(completed);
+        Node node = nodesById.get(task.getId());
+        reindex(node);
+        markChanged(node.index);
+        firePositionChanges(-1, -1);
+        fireTaskUpdated(task);
+        return true;
+    }
+    
+    // Add many tasks at once: the heap is presized and, for a large batch, rebuilt
+    // in O(n) instead of sifting each task in; tasks already queued are repositioned.
+    // As with addTask, a task whose id is taken by another task is rejected.
+    public void addAll(Collection<? extends Task> tasks) {
+        // Checked up front, so a bad element leaves the queue untouched
+        Map<Long, Task> batchIds = new HashMap<>();
+        for (Task task : tasks) {
+            if (task == null) {
+                throw new IllegalArgumentException("Task cannot be null");
+            }
+            Node existing = nodesById.get(task.getId());
+            Task other = existing != null ? existing.task : batchIds.putIfAbsent(task.getId(), task);
+            if (other != null && other != task) {
+                throw new IllegalArgumentException("Another task with id " + task.getId() + " is already queued");
+            }
+        }
+        
+        int queued = size;
+        ensureCapacity(size + tasks.size());
+        List<Node> added = new ArrayList<>(tasks.size());
+        List<Node> updated = new ArrayList<>();
+        for (Task task : tasks) {
+            Node node = nodesById.get(task.getId());
+            if (node == null) {
+                node = new Node(task, size);
+                heap[size++] = node;
+                nodesById.put(task.getId(), node);
+                added.add(node);
+            } else if (node.task == task && node.index >= 0 && node.index < queued) {
+                // Marked until the end of the loop, so a task listed twice is updated once
+                node.sortKey = sortKey(task);
+                node.index = -1 - node.index;
+                updated.add(node);
+            }
+        }
+        for (Node node : updated) {
+            node.index = -1 - node.index;
+        }
+        if (added.isEmpty() && updated.isEmpty()) {
+            return;
+        }
+        
+        bulkChange = true;
+        unindexAll(updated);
+        List<Node> changed = new ArrayList<>(added);
+        changed.addAll(updated);
+        indexAll(changed);
+        // New tasks can be sifted up one by one, but tasks changed before the call
+        // may all be out of place at once, which only a rebuild puts right
+        if (!updated.isEmpty() || worthRebuilding(added.size(), size)) {
+            heapify();
+        } else {
+            for (Node node : added) {
+                siftUp(node.index);
+            }
+        }
+        fireBulkChange(taskList(added), taskList(updated), Collections.<Task>emptyList());
+    }
+    
+    // Replace every task with the given ones, rebuilding the heap in O(n); listeners
+    // see a single replacement. A task listed twice is queued once, but two tasks
+    // sharing an id are rejected before anything is cleared.
+    public void replaceAll(Collection<? extends Task> tasks) {
+        Map<Long, Task> batchIds = new HashMap<>();
+        for (Task task : tasks) {
+            if (task == null) {
+                throw new IllegalArgumentException("Task cannot be null");
+            }
+            Task other = batchIds.putIfAbsent(task.getId(), task);
+            if (other != null && other != task) {
+                throw new IllegalArgumentException("Two tasks share id " + task.getId());
+            }
+        }
+        
+        resetQueue();
+        ensureCapacity(batchIds.size());
+        List<Node> added = new ArrayList<>(batchIds.size());
+        for (Task task : tasks) {
+            if (!nodesById.containsKey(task.getId())) {
+                Node node = new Node(task, size);
+                heap[size++] = node;
+                nodesById.put(task.getId(), node);
+                added.add(node);
+            }
+        }
+        bulkChange = true;
+        indexAll(added);
+        heapify();
+        
+        bulkChange = false;
+        changedCount = 0;
+        List<Task> replaced = taskList(added);
+        for (PositionListener listener : positionListeners) {
+            listener.positionsReset();
+        }
+        for (TaskListener listener : listeners) {
+            listener.tasksReplaced(replaced);
+        }
+    }
+    
+    // Mark many queued tasks completed at once, returning how many changed
+    // (completion does not affect queue order, so the heap is untouched)
+    public int completeAll(Collection<? extends Task> tasks) {
+        List<Node> changed = new ArrayList<>();
+        for (Task task : tasks) {
+            if (containsTask(task) && !task.isCompleted()) {
+                task.setCompleted(true);
+                changed.add(nodesById.get(task.getId()));
+            }
+        }
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        
+        bulkChange = true;
+        unindexAll(changed);
+        indexAll(changed);
+        fireBulkChange(Collections.<Task>emptyList(), taskList(changed), Collections.<Task>emptyList());
+        return changed.size();
+    }
+    
+    // Apply a change to many queued tasks, moving each to its new position (or,
+    // for a large batch, rebuilding the heap once); tasks that are not queued are
+    // left alone. Returns how many were changed.
+    public int updateAll(Collection<? extends Task> tasks, Consumer<? super Task> change) {
+        boolean rebuild = worthRebuilding(tasks.size(), size);
+        List<Node> changed = new ArrayList<>();
+        Map<Node, Boolean> seen = new IdentityHashMap<>();
+        boolean completed = false;
+        bulkChange = true;
+        try {
+            for (Task task : tasks) {
+                if (containsTask(task)) {
+                    Node node = nodesById.get(task.getId());
+                    if (seen.put(node, Boolean.TRUE) == null) {
+                        changed.add(node);
+                        change.accept(task);
+                        node.sortKey = sortKey(task);
+                        if (!rebuild) {
+                            reposition(node.index);
+                        }
+                    }
+                }
+            }
+            completed = true;
+        } finally {
+            // Even if the change failed part way, what it touched is put back in order
+            if (changed.isEmpty()) {
+                bulkChange = false;
+            } else {
+                unindexAll(changed);
+                indexAll(changed);
+                if (rebuild || !completed) {
+                    for (Node node : changed) {
+                        node.sortKey = sortKey(node.task);
+                    }
+                    heapify();
+                }
+                fireBulkChange(Collections.<Task>emptyList(), taskList(changed), Collections.<Task>emptyList());
+            }
+        }
+        return changed.size();
+    }
+    
+    // Remove every task the filter accepts in one pass, rebuilding the heap
+    // once; returns how many were removed
+    public int removeIf(Predicate<? super Task> filter) {
+        // Every task is tested before any is removed, so a failing filter changes nothing
+        BitSet matches = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (filter.test(heap[i].task)) {
+                matches.set(i);
+            }
+        }
+        if (matches.isEmpty()) {
+            return 0;
+        }
+        
+        List<Node> removed = new ArrayList<>(matches.cardinality());
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            Node node = heap[i];
+            if (matches.get(i)) {
+                removed.add(node);
+            } else {
+                heap[kept] = node;
+                node.index = kept++;
+            }
+        }
+        
+        bulkChange = true;
+        Arrays.fill(heap, kept, size, null);
+        size = kept;
+        for (Node node : removed) {
+            nodesById.remove(node.id);
+            titleIndex.remove(node.id);
+            node.index = -1;
+        }
+        unindexAll(removed);
+        // Closing the gaps broke heap order wherever it moved a node
+        heapify();
+        fireBulkChange(Collections.<Task>emptyList(), Collections.<Task>emptyList(), taskList(removed));
+        return removed.size();
+    }
+    
+    // Register a listener for task changes
+    public void addTaskListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeTaskListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+    
+    // Register a listener for queue position changes
+    public void addPositionListener(PositionListener listener) {
+        positionListeners.add(listener);
+    }
+    
+    public void removePositionListener(PositionListener listener) {
+        positionListeners.remove(listener);
+    }
+    
+    // Get the task at a queue position (heap slot) in O(1), as ordered by getAllTasks
+    public Task getTaskAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", size: " + size);
+        }
+        return heap[position].task;
+    }
+    
+    // Get the queue position of the task with the given id in O(1), or -1 if not queued
+    public int getPositionById(long id) {
+        Node node = nodesById.get(id);
+        return node == null ? -1 : node.index;
     }
     
     // Get the number of tasks in the queue
     public int getTaskCount() {
-        return taskQueue.size();
+        return size;
     }
     
     // Check if the queue is empty
     public boolean isEmpty() {
-        return taskQueue.isEmpty();
+        return size == 0;
     }
     
-    // Get all tasks as a list (for display purposes)
+    /**
+     * Gets a read-only view of the tasks in the given order, for walking them
+     * sorted without copying or sorting (see SortedView)
+     */
+    public SortedView sortedView(SortOrder order) {
+        SortedView view = sortedViews[order.ordinal()];
+        if (view == null) {
+            view = new SortedView(order);
+            sortedViews[order.ordinal()] = view;
+        }
+        return view;
+    }
+    
+    // Get all tasks as a list in heap order (for display purposes; see sortedView for queue order)
     public List<Task> getAllTasks() {
-        return new ArrayList<>(taskQueue);
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(heap[i].task);
+        }
+        return tasks;
     }
     
     // Clear all tasks
     public void clearAllTasks() {
-        taskQueue.clear();
+        resetQueue();
+        changedCount = 0;
+        for (PositionListener listener : positionListeners) {
+            listener.positionsReset();
+        }
+        for (TaskListener listener : listeners) {
+            listener.tasksCleared();
+        }
+    }
+    
+    // Empty the heap and every index, without notifying listeners
+    private void resetQueue() {
+        for (int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        size = 0;
+        nodesById.clear();
+        for (NavigableSet<Node> bucket : priorityBuckets) {
+            bucket.clear();
+        }
+        otherPriorities.clear();
+        pendingByDeadline.clear();
+        completedByDeadline.clear();
+        titleIndex.clear();
+        modCount++;
     }
     
-    // Get all completed tasks
+    // Get all completed tasks, earliest deadline first
     public List<Task> getCompletedTasks() {
-        List<Task> completedTasks = new ArrayList<>();
-        for (Task task : taskQueue) {
-            if (task.isCompleted()) {
-                completedTasks.add(task);
+        return collect(deadlineView(null, false, null, false, false, true));
+    }
+    
+    // Get all pending (incomplete) tasks, earliest deadline first
+    public List<Task> getPendingTasks() {
+        return collect(deadlineView(null, false, null, false, true, false));
+    }
+    
+    // Get tasks with a priority in [minPriority, maxPriority] in queue order,
+    // reading only the matching priority buckets
+    public List<Task> getTasksByPriority(int minPriority, int maxPriority) {
+        return collect(priorityView(minPriority, maxPriority));
+    }
+    
+    /**
+     * Gets tasks whose deadline lies in the given range, earliest first.
+     * Only the index entries inside the range are visited.
+     * @param from lower bound, or null for no lower bound
+     * @param fromInclusive whether a deadline equal to from matches
+     * @param to upper bound, or null for no upper bound
+     * @param toInclusive whether a deadline equal to to matches
+     * @param includeCompleted false to return pending tasks only
+     */
+    public List<Task> getTasksDueBetween(LocalDateTime from, boolean fromInclusive,
+                                         LocalDateTime to, boolean toInclusive, boolean includeCompleted) {
+        return collect(deadlineView(from, fromInclusive, to, toInclusive, true, includeCompleted));
+    }
+    
+    /**
+     * Searches titles by word prefix: every term of the query must start a
+     * word of the title ("wee rep" finds "Weekly report"). Uses the title
+     * index, so the cost depends on the rarest term rather than the task count.
+     * @param query Search text
+     * @param limit Maximum number of results
+     * @return Matching tasks, best match first (whole-word matches, then matches
+     *         near the start of the title, then shorter titles)
+     */
+    public List<Task> searchTitles(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (long id : titleIndex.search(query, limit)) {
+            result.add(nodesById.get(id).task);
+        }
+        return result;
+    }
+    
+    // Search titles by word prefix without a result limit
+    public List<Task> searchTitles(String query) {
+        return searchTitles(query, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Searches titles like searchTitles, also accepting words a typo or two
+     * away from each term (see TitleIndex.searchFuzzy)
+     * @param query Search text
+     * @param limit Maximum number of results
+     * @return Matching tasks, fewest typos first
+     */
+    public List<Task> searchTitlesFuzzy(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (long id : titleIndex.searchFuzzy(query, limit)) {
+            result.add(nodesById.get(id).task);
+        }
+        return result;
+    }
+    
+    // Get the number of tasks with a priority in [minPriority, maxPriority]
+    public int countByPriority(int minPriority, int maxPriority) {
+        int count = 0;
+        for (NavigableSet<Node> part : priorityParts(minPriority, maxPriority)) {
+            count += part.size();
+        }
+        return count;
+    }
+    
+    /**
+     * Counts tasks due in the given range, stopping at a cap so a wide range
+     * costs no more than the cap (bounds as in getTasksDueBetween)
+     * @return the count, or cap if there are at least that many
+     */
+    public int countDueBetween(LocalDateTime from, boolean fromInclusive, LocalDateTime to, boolean toInclusive,
+                               boolean pending, boolean completed, int cap) {
+        int count = 0;
+        for (Iterator<Task> it = deadlineView(from, fromInclusive, to, toInclusive, pending, completed).iterator();
+                count < cap && it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+    
+    public int getCompletedCount() {
+        return completedByDeadline.size();
+    }
+    
+    public int getPendingCount() {
+        return pendingByDeadline.size();
+    }
+    
+    // Lazy views over the heap and indexes for TaskQuery; they read the live
+    // structures, so they must be used up before the next mutation
+    
+    // All tasks in heap order, without copying
+    Iterable<Task> queueView() {
+        return () -> new Iterator<Task>() {
+            private int next;
+            
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+            
+            @Override
+            public Task next() {
+                return heap[next++].task;
             }
+        };
+    }
+    
+    // Tasks with a priority in [minPriority, maxPriority] in queue order
+    Iterable<Task> priorityView(int minPriority, int maxPriority) {
+        return tasksOf(priorityParts(minPriority, maxPriority));
+    }
+    
+    // Tasks due in the given range from the pending and/or completed index, earliest first
+    Iterable<Task> deadlineView(LocalDateTime from, boolean fromInclusive, LocalDateTime to, boolean toInclusive,
+                                boolean pending, boolean completed) {
+        NavigableSet<Node> pendingRange = pending
+            ? deadlineRange(pendingByDeadline, from, fromInclusive, to, toInclusive) : Collections.emptyNavigableSet();
+        NavigableSet<Node> completedRange = completed
+            ? deadlineRange(completedByDeadline, from, fromInclusive, to, toInclusive) : Collections.emptyNavigableSet();
+        return merged(pendingRange, completedRange);
+    }
+    
+    // Tasks of two deadline-ordered node sets, merged into one deadline order
+    private static Iterable<Task> merged(NavigableSet<Node> first, NavigableSet<Node> second) {
+        if (second.isEmpty()) {
+            return tasksOf(Collections.singletonList(first));
+        }
+        if (first.isEmpty()) {
+            return tasksOf(Collections.singletonList(second));
         }
-        return completedTasks;
+        
+        return () -> new Iterator<Task>() {
+            private final Iterator<Node> firstNodes = first.iterator();
+            private final Iterator<Node> secondNodes = second.iterator();
+            private Node nextFirst = firstNodes.hasNext() ? firstNodes.next() : null;
+            private Node nextSecond = secondNodes.hasNext() ? secondNodes.next() : null;
+            
+            @Override
+            public boolean hasNext() {
+                return nextFirst != null || nextSecond != null;
+            }
+            
+            @Override
+            public Task next() {
+                Node node;
+                if (nextSecond == null || (nextFirst != null && BY_DEADLINE.compare(nextFirst, nextSecond) < 0)) {
+                    if (nextFirst == null) {
+                        throw new NoSuchElementException();
+                    }
+                    node = nextFirst;
+                    nextFirst = firstNodes.hasNext() ? firstNodes.next() : null;
+                } else {
+                    node = nextSecond;
+                    nextSecond = secondNodes.hasNext() ? secondNodes.next() : null;
+                }
+                return node.task;
+            }
+        };
     }
     
-    // Get all pending (incomplete) tasks
-    public List<Task> getPendingTasks() {
-        List<Task> pendingTasks = new ArrayList<>();
-        for (Task task : taskQueue) {
-            if (!task.isCompleted()) {
-                pendingTasks.add(task);
+    // Index sets holding priorities in [minPriority, maxPriority], in queue order
+    private List<NavigableSet<Node>> priorityParts(int minPriority, int maxPriority) {
+        List<NavigableSet<Node>> parts = new ArrayList<>();
+        if (minPriority > maxPriority) {
+            return parts;
+        }
+        // Out-of-range priorities are rare; those above the buckets sort first
+        if (maxPriority > MAX_PRIORITY) {
+            parts.add(otherRange(Math.max(minPriority, MAX_PRIORITY + 1), maxPriority));
+        }
+        for (int priority = Math.min(maxPriority, MAX_PRIORITY); priority >= Math.max(minPriority, MIN_PRIORITY); priority--) {
+            parts.add(priorityBuckets[priority - MIN_PRIORITY]);
+        }
+        if (minPriority < MIN_PRIORITY) {
+            parts.add(otherRange(minPriority, Math.min(maxPriority, MIN_PRIORITY - 1)));
+        }
+        return parts;
+    }
+    
+    private NavigableSet<Node> otherRange(int minPriority, int maxPriority) {
+        Node first = new Node(maxPriority, LocalDateTime.MIN, Long.MIN_VALUE);
+        Node last = new Node(minPriority, LocalDateTime.MAX, Long.MAX_VALUE);
+        return otherPriorities.subSet(first, true, last, true);
+    }
+    
+    private static NavigableSet<Node> deadlineRange(NavigableSet<Node> index, LocalDateTime from, boolean fromInclusive,
+                                                    LocalDateTime to, boolean toInclusive) {
+        // Search keys sort before or after every real task with the same deadline
+        Node low = from == null ? null : new Node(0, from, fromInclusive ? Long.MIN_VALUE : Long.MAX_VALUE);
+        Node high = to == null ? null : new Node(0, to, toInclusive ? Long.MAX_VALUE : Long.MIN_VALUE);
+        if (low != null && high != null) {
+            if (BY_DEADLINE.compare(low, high) > 0) {
+                return Collections.emptyNavigableSet();
+            }
+            return index.subSet(low, true, high, true);
+        }
+        if (low != null) {
+            return index.tailSet(low, true);
+        }
+        if (high != null) {
+            return index.headSet(high, true);
+        }
+        return index;
+    }
+    
+    private static List<Task> collect(Iterable<Task> tasks) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            result.add(task);
+        }
+        return result;
+    }
+    
+    // Tasks of the given node sets, one set after another
+    private static Iterable<Task> tasksOf(List<? extends Iterable<Node>> parts) {
+        return () -> new Iterator<Task>() {
+            private final Iterator<? extends Iterable<Node>> remaining = parts.iterator();
+            private Iterator<Node> current = Collections.emptyIterator();
+            
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && remaining.hasNext()) {
+                    current = remaining.next().iterator();
+                }
+                return current.hasNext();
+            }
+            
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next().task;
+            }
+        };
+    }
+    
+    // Iterate tasks, failing fast if this TaskManager is changed meanwhile
+    private Iterable<Task> checked(Iterable<Task> tasks) {
+        return () -> new Iterator<Task>() {
+            private final Iterator<Task> iterator = tasks.iterator();
+            private final int expectedModCount = modCount;
+            
+            @Override
+            public boolean hasNext() {
+                checkForModification();
+                return iterator.hasNext();
+            }
+            
+            @Override
+            public Task next() {
+                checkForModification();
+                return iterator.next();
+            }
+            
+            private void checkForModification() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+    
+    // The indexed node of a queued task, or a search key at the task's current values
+    private Node keyOf(Task task) {
+        Node node = nodesById.get(task.getId());
+        if (node != null && node.task == task) {
+            return node;
+        }
+        return new Node(task.getPriority(), task.getDeadline(), task.getId());
+    }
+    
+    // File a node in the secondary indexes under the task's current values
+    private void index(Node node) {
+        modCount++;
+        node.priority = node.task.getPriority();
+        node.deadline = node.task.getDeadline();
+        node.completed = node.task.isCompleted();
+        priorityIndex(node.priority).add(node);
+        (node.completed ? completedByDeadline : pendingByDeadline).add(node);
+        // Keyed by id, so an unchanged title costs no index work
+        titleIndex.put(node.id, node.task.getTitle());
+    }
+    
+    // Remove a node using the values it was filed under, even if the task changed since
+    private void unindex(Node node) {
+        modCount++;
+        priorityIndex(node.priority).remove(node);
+        (node.completed ? completedByDeadline : pendingByDeadline).remove(node);
+    }
+    
+    private void reindex(Node node) {
+        unindex(node);
+        index(node);
+    }
+    
+    // File many nodes at once, like index; a large batch rebuilds each index it
+    // touches from one sorted run instead of inserting node by node
+    private void indexAll(List<Node> nodes) {
+        modCount++;
+        Map<NavigableSet<Node>, List<Node>> additions = new IdentityHashMap<>();
+        for (Node node : nodes) {
+            node.priority = node.task.getPriority();
+            node.deadline = node.task.getDeadline();
+            node.completed = node.task.isCompleted();
+            additions.computeIfAbsent(priorityIndex(node.priority), set -> new ArrayList<>()).add(node);
+            additions.computeIfAbsent(node.completed ? completedByDeadline : pendingByDeadline,
+                set -> new ArrayList<>()).add(node);
+            titleIndex.put(node.id, node.task.getTitle());
+        }
+        for (Map.Entry<NavigableSet<Node>, List<Node>> addition : additions.entrySet()) {
+            NavigableSet<Node> index = addition.getKey();
+            List<Node> batch = addition.getValue();
+            if (!worthRebuilding(batch.size(), index.size() + batch.size())) {
+                for (Node node : batch) {
+                    index.add(node);
+                }
+                continue;
+            }
+            batch.sort(index.comparator());
+            List<Node> merged = new ArrayList<>(index.size() + batch.size());
+            Iterator<Node> existing = index.iterator();
+            Node next = existing.hasNext() ? existing.next() : null;
+            for (Node node : batch) {
+                while (next != null && index.comparator().compare(next, node) < 0) {
+                    merged.add(next);
+                    next = existing.hasNext() ? existing.next() : null;
+                }
+                merged.add(node);
+            }
+            while (next != null) {
+                merged.add(next);
+                next = existing.hasNext() ? existing.next() : null;
+            }
+            rebuild(index, merged);
+        }
+    }
+    
+    // Remove many nodes at once, like unindex; a large batch rebuilds each
+    // index it touches from the nodes that stay
+    private void unindexAll(List<Node> nodes) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        modCount++;
+        Map<NavigableSet<Node>, List<Node>> removals = new IdentityHashMap<>();
+        for (Node node : nodes) {
+            removals.computeIfAbsent(priorityIndex(node.priority), set -> new ArrayList<>()).add(node);
+            removals.computeIfAbsent(node.completed ? completedByDeadline : pendingByDeadline,
+                set -> new ArrayList<>()).add(node);
+        }
+        for (Map.Entry<NavigableSet<Node>, List<Node>> removal : removals.entrySet()) {
+            NavigableSet<Node> index = removal.getKey();
+            List<Node> batch = removal.getValue();
+            if (!worthRebuilding(batch.size(), index.size())) {
+                for (Node node : batch) {
+                    index.remove(node);
+                }
+                continue;
+            }
+            Map<Node, Boolean> leaving = new IdentityHashMap<>();
+            for (Node node : batch) {
+                leaving.put(node, Boolean.TRUE);
+            }
+            List<Node> staying = new ArrayList<>(index.size());
+            for (Node node : index) {
+                if (!leaving.containsKey(node)) {
+                    staying.add(node);
+                }
             }
+            rebuild(index, staying);
+        }
+    }
+    
+    // Refill an index from nodes already in its order. TreeSet.addAll builds
+    // the tree in linear time when an empty set is given a SortedSet with the
+    // same comparator, and adds one by one otherwise.
+    private static void rebuild(NavigableSet<Node> index, List<Node> sorted) {
+        index.clear();
+        index.addAll(new SortedRun(sorted, index.comparator()));
+    }
+    
+    // Whether changing k of n entries is cheaper in bulk, O(n), than one at a time, O(k log n)
+    private static boolean worthRebuilding(int changed, int total) {
+        return (long) changed * (32 - Integer.numberOfLeadingZeros(total)) > total;
+    }
+    
+    // Nodes already in sorted order, presented as a SortedSet for TreeSet.addAll
+    private static final class SortedRun extends AbstractSet<Node> implements SortedSet<Node> {
+        private final List<Node> nodes;
+        private final Comparator<? super Node> comparator;
+        
+        SortedRun(List<Node> nodes, Comparator<? super Node> comparator) {
+            this.nodes = nodes;
+            this.comparator = comparator;
+        }
+        
+        @Override
+        public Iterator<Node> iterator() {
+            return nodes.iterator();
+        }
+        
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+        
+        @Override
+        public Comparator<? super Node> comparator() {
+            return comparator;
+        }
+        
+        @Override
+        public Node first() {
+            return nodes.get(0);
+        }
+        
+        @Override
+        public Node last() {
+            return nodes.get(nodes.size() - 1);
+        }
+        
+        @Override
+        public SortedSet<Node> subSet(Node fromElement, Node toElement) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public SortedSet<Node> headSet(Node toElement) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public SortedSet<Node> tailSet(Node fromElement) {
+            throw new UnsupportedOperationException();
+        }
+    }
+    
+    private NavigableSet<Node> priorityIndex(int priority) {
+        if (priority < MIN_PRIORITY || priority > MAX_PRIORITY) {
+            return otherPriorities;
+        }
+        return priorityBuckets[priority - MIN_PRIORITY];
+    }
+    
+    // Remove the node at the given heap slot and return its task
+    private Task removeAt(int index) {
+        Node removed = heap[index];
+        nodesById.remove(removed.task.getId());
+        unindex(removed);
+        titleIndex.remove(removed.id);
+        
+        int last = --size;
+        if (index != last) {
+            Node moved = heap[last];
+            heap[index] = moved;
+            moved.index = index;
+            heap[last] = null;
+            reposition(index);
+        } else {
+            heap[last] = null;
+        }
+        removed.index = -1;
+        
+        firePositionChanges(-1, last);
+        for (TaskListener listener : listeners) {
+            listener.taskRemoved(removed.task);
+        }
+        return removed.task;
+    }
+    
+    private void markChanged(int slot) {
+        if (positionListeners.isEmpty() || bulkChange) {
+            return;
+        }
+        if (changedCount == changedSlots.length) {
+            changedSlots = Arrays.copyOf(changedSlots, changedCount * 2);
+        }
+        changedSlots[changedCount++] = slot;
+    }
+    
+    /**
+     * Reports the slots written by the mutation that just completed, merged
+     * into ranges
+     * @param inserted slot added at the end of the queue, or -1
+     * @param removed slot dropped from the end of the queue, or -1
+     */
+    private void firePositionChanges(int inserted, int removed) {
+        if (positionListeners.isEmpty()) {
+            changedCount = 0;
+            return;
+        }
+        int[] slots = Arrays.copyOf(changedSlots, changedCount);
+        changedCount = 0;
+        Arrays.sort(slots);
+        
+        for (PositionListener listener : positionListeners) {
+            if (removed >= 0) {
+                listener.positionsRemoved(removed, removed);
+            }
+            if (inserted >= 0) {
+                listener.positionsInserted(inserted, inserted);
+            }
+            int start = 0;
+            while (start < slots.length) {
+                int end = start;
+                while (end + 1 < slots.length && slots[end + 1] <= slots[end] + 1) {
+                    end++;
+                }
+                // The inserted slot is already new to listeners; removed slots are gone
+                int first = slots[start];
+                int last = Math.min(slots[end], size - 1);
+                if (inserted >= 0 && last == inserted) {
+                    last--;
+                }
+                if (first <= last) {
+                    listener.positionsChanged(first, last);
+                }
+                start = end + 1;
+            }
+        }
+    }
+    
+    // Ends a bulk operation: one reset for position listeners, and one call
+    // per kind of change for task listeners
+    private void fireBulkChange(List<Task> added, List<Task> updated, List<Task> removed) {
+        bulkChange = false;
+        changedCount = 0;
+        for (PositionListener listener : positionListeners) {
+            listener.positionsReset();
+        }
+        for (TaskListener listener : listeners) {
+            if (!removed.isEmpty()) {
+                listener.tasksRemoved(removed);
+            }
+            if (!added.isEmpty()) {
+                listener.tasksAdded(added);
+            }
+            if (!updated.isEmpty()) {
+                listener.tasksUpdated(updated);
+            }
+        }
+    }
+    
+    private static List<Task> taskList(List<Node> nodes) {
+        List<Task> tasks = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            tasks.add(node.task);
+        }
+        return tasks;
+    }
+    
+    private void fireTaskUpdated(Task task) {
+        for (TaskListener listener : listeners) {
+            listener.taskUpdated(task);
+        }
+    }
+    
+    // Pack a task's queue order into a key whose natural order matches taskComparator
+    // wherever the keys differ
+    private static long sortKey(Task task) {
+        long priorityField = KEY_PRIORITY_OFFSET - task.getPriority();
+        if (priorityField <= 0 || priorityField >= KEY_PRIORITY_LIMIT) {
+            // Beyond the field: ties with every task clamped alike, whatever its deadline
+            return (priorityField <= 0 ? 0 : KEY_PRIORITY_LIMIT) << (KEY_SECOND_BITS + 1) | 1;
+        }
+        long key = priorityField << (KEY_SECOND_BITS + 1);
+        LocalDateTime deadline = task.getDeadline();
+        if (deadline == null) {
+            return key | 1;
+        }
+        long secondField = deadline.toEpochSecond(ZoneOffset.UTC) + KEY_SECOND_OFFSET;
+        if (secondField <= 0 || secondField >= KEY_SECOND_LIMIT) {
+            return key | (secondField <= 0 ? 0 : KEY_SECOND_LIMIT) << 1 | 1;
+        }
+        return key | secondField << 1 | (deadline.getNano() != 0 ? 1 : 0);
+    }
+    
+    // Heap order: one comparison of the packed keys, falling back to the
+    // tasks themselves only when inexact keys tie
+    private int compare(Node n1, Node n2) {
+        if (n1.sortKey != n2.sortKey) {
+            return n1.sortKey < n2.sortKey ? -1 : 1;
+        }
+        return (n1.sortKey & 1) == 0 ? 0 : taskComparator.compare(n1.task, n2.task);
+    }
+    
+    // Floyd's bottom-up heap construction, O(n)
+    private void heapify() {
+        for (int index = (size >>> 1) - 1; index >= 0; index--) {
+            siftDown(index);
+        }
+    }
+    
+    // Move the node at the given slot up or down until heap order holds
+    private void reposition(int index) {
+        if (siftUp(index) == index) {
+            siftDown(index);
+        }
+    }
+    
+    private int siftUp(int index) {
+        Node node = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Node parentNode = heap[parent];
+            if (compare(node, parentNode) >= 0) {
+                break;
+            }
+            heap[index] = parentNode;
+            parentNode.index = index;
+            markChanged(index);
+            index = parent;
+        }
+        heap[index] = node;
+        node.index = index;
+        markChanged(index);
+        return index;
+    }
+    
+    private void siftDown(int index) {
+        Node node = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            Node childNode = heap[child];
+            int right = child + 1;
+            if (right < size && compare(heap[right], childNode) < 0) {
+                child = right;
+                childNode = heap[child];
+            }
+            if (compare(node, childNode) <= 0) {
+                break;
+            }
+            heap[index] = childNode;
+            childNode.index = index;
+            markChanged(index);
+            index = child;
+        }
+        heap[index] = node;
+        node.index = index;
+        markChanged(index);
+    }
+    
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > heap.length) {
+            int newCapacity = Math.max(minCapacity, heap.length + (heap.length >> 1));
+            Node[] grown = new Node[newCapacity];
+            System.arraycopy(heap, 0, grown, 0, size);
+            heap = grown;
         }
-        return pendingTasks;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,544 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Composable, immutable task query.
+ * Conditions (priority range, deadline windows, completion, title text and
+ * custom predicates) are combined with AND and checked together in a single
+ * pass, so no intermediate lists are built. Against a TaskManager the query
+ * reads the most selective index instead of every task, and with a limit it
+ * stops as soon as enough tasks are found (or keeps only the best N when the
+ * index order differs from the requested one).
+ *
+ * Every builder method returns a new query, so queries can be shared and
+ * extended freely. Relative windows such as overdue() are resolved against
+ * the clock each time the query runs.
+ */
+public final class TaskQuery implements FilterUtils.TaskFilter {
+    
+    // Queue order: priority (highest first), then deadline (earliest first), then id
+    public static final Comparator<Task> QUEUE_ORDER = new Comparator<Task>() {
+        @Override
+        public int compare(Task t1, Task t2) {
+            int priorityComparison = Integer.compare(t2.getPriority(), t1.getPriority());
+            return priorityComparison != 0 ? priorityComparison : DEADLINE_ORDER.compare(t1, t2);
+        }
+    };
+    
+    // Deadline (earliest first), then id
+    public static final Comparator<Task> DEADLINE_ORDER = new Comparator<Task>() {
+        @Override
+        public int compare(Task t1, Task t2) {
+            int deadlineComparison = t1.getDeadline().compareTo(t2.getDeadline());
+            return deadlineComparison != 0 ? deadlineComparison : Long.compare(t1.getId(), t2.getId());
+        }
+    };
+    
+    private static final TaskQuery ALL = new TaskQuery();
+    
+    // Visiting an index (tree) entry costs about eight times as much as a slot
+    // of the heap array, which is laid out contiguously (measured at 1M tasks)
+    private static final int INDEX_STEP_COST = 8;
+    
+    // Deadline window whose bounds may depend on the time the query runs
+    private static final class Window {
+        final Function<LocalDateTime, LocalDateTime> from;
+        final boolean fromInclusive;
+        final Function<LocalDateTime, LocalDateTime> to;
+        final boolean toInclusive;
+        
+        Window(Function<LocalDateTime, LocalDateTime> from, boolean fromInclusive,
+               Function<LocalDateTime, LocalDateTime> to, boolean toInclusive) {
+            this.from = from;
+            this.fromInclusive = fromInclusive;
+            this.to = to;
+            this.toInclusive = toInclusive;
+        }
+    }
+    
+    // Intersection of all windows at one point in time; null bounds are open
+    private static final class Bounds {
+        LocalDateTime from;
+        boolean fromInclusive;
+        LocalDateTime to;
+        boolean toInclusive;
+        
+        boolean isBounded() {
+            return from != null || to != null;
+        }
+        
+        boolean isEmpty() {
+            if (from == null || to == null) {
+                return false;
+            }
+            int comparison = from.compareTo(to);
+            return comparison > 0 || (comparison == 0 && !(fromInclusive && toInclusive));
+        }
+        
+        boolean contains(LocalDateTime deadline) {
+            if (from != null) {
+                int comparison = deadline.compareTo(from);
+                if (comparison < 0 || (comparison == 0 && !fromInclusive)) {
+                    return false;
+                }
+            }
+            if (to != null) {
+                int comparison = deadline.compareTo(to);
+                if (comparison > 0 || (comparison == 0 && !toInclusive)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private int minPriority = Integer.MIN_VALUE;
+    private int maxPriority = Integer.MAX_VALUE;
+    private List<Window> windows = Collections.emptyList();
+    private Boolean completed;
+    private boolean contradictory;
+    private List<String> titleTerms = Collections.emptyList();
+    private List<Predicate<Task>> predicates = Collections.emptyList();
+    private Comparator<Task> order;
+    private int limit = -1;
+    private int parallelThreshold = Integer.MAX_VALUE;
+    
+    private TaskQuery() {
+    }
+    
+    private TaskQuery copy() {
+        TaskQuery query = new TaskQuery();
+        query.minPriority = minPriority;
+        query.maxPriority = maxPriority;
+        query.windows = windows;
+        query.completed = completed;
+        query.contradictory = contradictory;
+        query.titleTerms = titleTerms;
+        query.predicates = predicates;
+        query.order = order;
+        query.limit = limit;
+        query.parallelThreshold = parallelThreshold;
+        return query;
+    }
+    
+    /**
+     * Gets the query that matches every task
+     */
+    public static TaskQuery all() {
+        return ALL;
+    }
+    
+    /**
+     * Keeps tasks with a priority in [min, max]
+     */
+    public TaskQuery priorityBetween(int min, int max) {
+        TaskQuery query = copy();
+        query.minPriority = Math.max(minPriority, min);
+        query.maxPriority = Math.min(maxPriority, max);
+        return query;
+    }
+    
+    /**
+     * Keeps tasks whose deadline lies in the given range
+     * @param from lower bound, or null for no lower bound
+     * @param fromInclusive whether a deadline equal to from matches
+     * @param to upper bound, or null for no upper bound
+     * @param toInclusive whether a deadline equal to to matches
+     */
+    public TaskQuery dueBetween(LocalDateTime from, boolean fromInclusive, LocalDateTime to, boolean toInclusive) {
+        return withWindow(new Window(from == null ? null : now -> from, fromInclusive,
+                                     to == null ? null : now -> to, toInclusive));
+    }
+    
+    // Keeps tasks due strictly before the given time
+    public TaskQuery dueBefore(LocalDateTime to) {
+        return dueBetween(null, false, to, false);
+    }
+    
+    // Keeps tasks due strictly after the given time
+    public TaskQuery dueAfter(LocalDateTime from) {
+        return dueBetween(from, false, null, false);
+    }
+    
+    // Keeps tasks due today (completed or not)
+    public TaskQuery dueToday() {
+        return withWindow(new Window(now -> now.toLocalDate().atStartOfDay(), true,
+                                     now -> now.toLocalDate().plusDays(1).atStartOfDay(), false));
+    }
+    
+    // Keeps pending tasks whose deadline has passed
+    public TaskQuery overdue() {
+        return withWindow(new Window(null, false, now -> now, false)).completed(false);
+    }
+    
+    // Keeps pending tasks due within the next given hours
+    public TaskQuery dueWithinHours(int hours) {
+        return withWindow(new Window(now -> now, false, now -> now.plusHours(hours), false)).completed(false);
+    }
+    
+    // Keeps tasks due from a day ago to a week ahead (completed or not)
+    public TaskQuery dueThisWeek() {
+        return withWindow(new Window(now -> now.minusDays(1), false, now -> now.plusDays(7), false));
+    }
+    
+    /**
+     * Keeps completed tasks (true) or pending tasks (false)
+     */
+    public TaskQuery completed(boolean isCompleted) {
+        TaskQuery query = copy();
+        if (completed != null && completed != isCompleted) {
+            query.contradictory = true;
+        }
+        query.completed = isCompleted;
+        return query;
+    }
+    
+    /**
+     * Keeps tasks whose title contains the text (case-insensitive);
+     * blank text matches every task
+     */
+    public TaskQuery titleContains(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return this;
+        }
+        TaskQuery query = copy();
+        query.titleTerms = append(titleTerms, text.toLowerCase().trim());
+        return query;
+    }
+    
+    /**
+     * Keeps tasks accepted by a custom predicate, checked after the built-in conditions
+     */
+    public TaskQuery matching(Predicate<Task> predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("Predicate cannot be null");
+        }
+        TaskQuery query = copy();
+        query.predicates = append(predicates, predicate);
+        return query;
+    }
+    
+    /**
+     * Sorts the results, e.g. by QUEUE_ORDER or DEADLINE_ORDER; without an order
+     * results come in the order of the list or index they were read from
+     */
+    public TaskQuery orderBy(Comparator<Task> comparator) {
+        TaskQuery query = copy();
+        query.order = comparator;
+        return query;
+    }
+    
+    /**
+     * Returns at most the given number of tasks (the first ones in the result order)
+     */
+    public TaskQuery limit(int maxResults) {
+        if (maxResults < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        TaskQuery query = copy();
+        query.limit = maxResults;
+        return query;
+    }
+    
+    /**
+     * Checks lists of at least the given size in parallel chunks on the common
+     * ForkJoinPool (see FilterUtils.filterParallel); results keep the same order
+     */
+    public TaskQuery parallel(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive");
+        }
+        TaskQuery query = copy();
+        query.parallelThreshold = threshold;
+        return query;
+    }
+    
+    // Runs in parallel above FilterUtils.DEFAULT_PARALLEL_THRESHOLD tasks
+    public TaskQuery parallel() {
+        return parallel(FilterUtils.DEFAULT_PARALLEL_THRESHOLD);
+    }
+    
+    /**
+     * Combines the conditions of both queries; the other query's order, limit
+     * and parallel threshold take precedence where it has them
+     */
+    public TaskQuery and(TaskQuery other) {
+        TaskQuery query = copy();
+        query.minPriority = Math.max(minPriority, other.minPriority);
+        query.maxPriority = Math.min(maxPriority, other.maxPriority);
+        query.windows = concat(windows, other.windows);
+        if (other.completed != null) {
+            query.contradictory |= completed != null && !completed.equals(other.completed);
+            query.completed = other.completed;
+        }
+        query.contradictory |= other.contradictory;
+        query.titleTerms = concat(titleTerms, other.titleTerms);
+        query.predicates = concat(predicates, other.predicates);
+        if (other.order != null) {
+            query.order = other.order;
+        }
+        if (other.limit >= 0) {
+            query.limit = other.limit;
+        }
+        if (other.parallelThreshold != Integer.MAX_VALUE) {
+            query.parallelThreshold = other.parallelThreshold;
+        }
+        return query;
+    }
+    
+    // True when the query only drops tasks, so it can be fused with neighbouring filters
+    boolean isFilterOnly() {
+        return order == null && limit < 0;
+    }
+    
+    @Override
+    public List<Task> apply(List<Task> tasks) {
+        return execute(tasks);
+    }
+    
+    /**
+     * Runs the query over a list in one pass
+     * @param tasks List of tasks to query
+     * @return New list of matching tasks
+     */
+    public List<Task> execute(List<Task> tasks) {
+        Bounds bounds = resolveBounds(LocalDateTime.now());
+        if (matchesNothing(bounds)) {
+            return new ArrayList<>();
+        }
+        return run(tasks, null, bounds);
+    }
+    
+    /**
+     * Runs the query against the TaskManager, reading the smallest of the
+     * priority, completion and deadline index ranges that cover it
+     * (call on the thread that mutates the TaskManager)
+     * @param taskManager TaskManager to query
+     * @return New list of matching tasks
+     */
+    public List<Task> execute(TaskManager taskManager) {
+        Bounds bounds = resolveBounds(LocalDateTime.now());
+        if (matchesNothing(bounds)) {
+            return new ArrayList<>();
+        }
+        
+        // Each candidate source costs the entries it visits, index entries
+        // weighted by INDEX_STEP_COST against heap slots
+        int total = taskManager.getTaskCount();
+        Iterable<Task> source = taskManager.queueView();
+        Comparator<Task> sourceOrder = null;
+        long cost = total;
+        
+        int priorityCount = total;
+        if (minPriority != Integer.MIN_VALUE || maxPriority != Integer.MAX_VALUE) {
+            priorityCount = taskManager.countByPriority(minPriority, maxPriority);
+            if ((long) priorityCount * INDEX_STEP_COST < cost) {
+                source = taskManager.priorityView(minPriority, maxPriority);
+                sourceOrder = QUEUE_ORDER;
+                cost = (long) priorityCount * INDEX_STEP_COST;
+            }
+        }
+        if (completed != null) {
+            int count = completed ? taskManager.getCompletedCount() : taskManager.getPendingCount();
+            if ((long) count * INDEX_STEP_COST < cost) {
+                source = taskManager.deadlineView(null, false, null, false, !completed, completed);
+                sourceOrder = DEADLINE_ORDER;
+                cost = (long) count * INDEX_STEP_COST;
+            }
+        }
+        
+        // With a limit, a source already in the requested order can stop early,
+        // after about limit / selectivity entries if matches are spread evenly
+        long expectedScan = cost == 0 ? 0 : Math.min((long) limit * total * INDEX_STEP_COST / cost, total);
+        boolean pending = completed == null || !completed;
+        boolean done = completed == null || completed;
+        Iterable<Task> orderedSource = null;
+        if (limit > 0 && order != sourceOrder) {
+            if (order == QUEUE_ORDER) {
+                orderedSource = taskManager.priorityView(minPriority, maxPriority);
+                expectedScan = Math.min(expectedScan, priorityCount);
+            } else if (order == DEADLINE_ORDER) {
+                orderedSource = taskManager.deadlineView(bounds.from, bounds.fromInclusive,
+                                                         bounds.to, bounds.toInclusive, pending, done);
+            }
+        }
+        if (orderedSource != null && expectedScan * INDEX_STEP_COST < cost) {
+            source = orderedSource;
+            sourceOrder = order;
+            cost = expectedScan * INDEX_STEP_COST;
+        }
+        
+        if (bounds.isBounded()) {
+            // Counting walks the window too, so it only pays off below half the best cost
+            int cap = (int) (cost / (2 * INDEX_STEP_COST));
+            int count = taskManager.countDueBetween(bounds.from, bounds.fromInclusive, bounds.to, bounds.toInclusive,
+                                                    pending, done, cap);
+            if (count < cap) {
+                source = taskManager.deadlineView(bounds.from, bounds.fromInclusive, bounds.to, bounds.toInclusive,
+                                                  pending, done);
+                sourceOrder = DEADLINE_ORDER;
+            }
+        }
+        if (sourceOrder == null && total >= parallelThreshold) {
+            // Full scan of a large queue: split a copy of the heap array instead
+            source = taskManager.getAllTasks();
+        }
+        return run(source, sourceOrder, bounds);
+    }
+    
+    private List<Task> run(Iterable<Task> source, Comparator<Task> sourceOrder, Bounds bounds) {
+        List<Task> result = new ArrayList<>();
+        if (limit == 0) {
+            return result;
+        }
+        
+        // Large lists are checked in parallel chunks, then ordered and cut as a whole
+        if (source instanceof List && ((List<Task>) source).size() >= parallelThreshold) {
+            result = FilterUtils.filterParallel((List<Task>) source, chunk -> matchAll(chunk, bounds), parallelThreshold);
+            if (order != null && order != sourceOrder) {
+                Task[] sorted = result.toArray(new Task[0]);
+                Arrays.parallelSort(sorted, order);
+                result = new ArrayList<>(Arrays.asList(sorted));
+            }
+            if (limit > 0 && result.size() > limit) {
+                result = new ArrayList<>(result.subList(0, limit));
+            }
+            return result;
+        }
+        
+        // Already in the requested order: stop at the limit
+        if (order == null || order == sourceOrder) {
+            for (Task task : source) {
+                if (matches(task, bounds)) {
+                    result.add(task);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+        
+        // Top N: keep the best N so far, worst on top of the heap
+        if (limit > 0) {
+            PriorityQueue<Task> best = new PriorityQueue<>(limit, order.reversed());
+            for (Task task : source) {
+                if (matches(task, bounds)) {
+                    if (best.size() < limit) {
+                        best.add(task);
+                    } else if (order.compare(task, best.peek()) < 0) {
+                        best.poll();
+                        best.add(task);
+                    }
+                }
+            }
+            result.addAll(best);
+            result.sort(order);
+            return result;
+        }
+        
+        for (Task task : source) {
+            if (matches(task, bounds)) {
+                result.add(task);
+            }
+        }
+        result.sort(order);
+        return result;
+    }
+    
+    private List<Task> matchAll(List<Task> tasks, Bounds bounds) {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (matches(task, bounds)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+    
+    // All conditions fused into one check, cheapest first
+    private boolean matches(Task task, Bounds bounds) {
+        int priority = task.getPriority();
+        if (priority < minPriority || priority > maxPriority) {
+            return false;
+        }
+        if (completed != null && task.isCompleted() != completed) {
+            return false;
+        }
+        if (bounds.isBounded() && !bounds.contains(task.getDeadline())) {
+            return false;
+        }
+        if (!titleTerms.isEmpty()) {
+            String title = task.getTitle().toLowerCase();
+            for (String term : titleTerms) {
+                if (!title.contains(term)) {
+                    return false;
+                }
+            }
+        }
+        for (Predicate<Task> predicate : predicates) {
+            if (!predicate.test(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean matchesNothing(Bounds bounds) {
+        return contradictory || minPriority > maxPriority || bounds.isEmpty();
+    }
+    
+    // Intersect the windows at the given time: the tightest bound wins, and
+    // an exclusive bound beats an inclusive one at the same instant
+    private Bounds resolveBounds(LocalDateTime now) {
+        Bounds bounds = new Bounds();
+        for (Window window : windows) {
+            if (window.from != null) {
+                LocalDateTime from = window.from.apply(now);
+                int comparison = bounds.from == null ? 1 : from.compareTo(bounds.from);
+                if (comparison > 0 || (comparison == 0 && !window.fromInclusive)) {
+                    bounds.from = from;
+                    bounds.fromInclusive = window.fromInclusive;
+                }
+            }
+            if (window.to != null) {
+                LocalDateTime to = window.to.apply(now);
+                int comparison = bounds.to == null ? -1 : to.compareTo(bounds.to);
+                if (comparison < 0 || (comparison == 0 && !window.toInclusive)) {
+                    bounds.to = to;
+                    bounds.toInclusive = window.toInclusive;
+                }
+            }
+        }
+        return bounds;
+    }
+    
+    private TaskQuery withWindow(Window window) {
+        TaskQuery query = copy();
+        query.windows = append(windows, window);
+        return query;
+    }
+    
+    private static <T> List<T> append(List<T> list, T item) {
+        return concat(list, Collections.singletonList(item));
+    }
+    
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        List<T> combined = new ArrayList<>(first);
+        combined.addAll(second);
+        return Collections.unmodifiableList(combined);
+    }
+}
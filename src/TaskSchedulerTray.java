@@ -6,9 +6,7 @@ import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.function.Consumer;
 import javax.swing.*;
 
 /**
@@ -21,9 +19,15 @@ public class TaskSchedulerTray {
     private TrayIcon trayIcon;
     private TaskManager taskManager;
     private JFrame mainWindow;
-    private Timer reminderTimer;
+    private ReminderScheduler reminderScheduler;
+    private Consumer<Task> reminderRecorder;
     private boolean traySupported;
     
+    // Icons are drawn once; one shared Swing timer ends every alert flash
+    private Image normalIcon;
+    private Image urgentIcon;
+    private Timer flashTimer;
+    
     // Icons (using simple shapes for compatibility)
     private static final String TRAY_TOOLTIP = "Smart Task Scheduler";
     
@@ -34,6 +38,9 @@ public class TaskSchedulerTray {
         
         if (traySupported) {
             initializeSystemTray();
+            // Reminders are shown on the EDT, where tasks are mutated
+            reminderScheduler = new ReminderScheduler(this::onReminderDue, SwingUtilities::invokeLater);
+            reminderScheduler.attach(taskManager);
             startReminderService();
         } else {
             System.out.println("System tray not supported on this platform");
@@ -45,7 +52,9 @@ public class TaskSchedulerTray {
             systemTray = SystemTray.getSystemTray();
             
             // Create tray icon image
-            Image trayImage = createTrayIconImage();
+            normalIcon = createTrayIconImage();
+            urgentIcon = createUrgentTrayIcon();
+            Image trayImage = normalIcon;
             
             // Create popup menu
             PopupMenu trayMenu = createTrayMenu();
@@ -149,42 +158,26 @@ public class TaskSchedulerTray {
     }
     
     private void startReminderService() {
-        if (reminderTimer != null) {
-            reminderTimer.cancel();
-        }
-        
-        reminderTimer = new Timer(true); // Daemon timer
-        
-        // Check for due tasks every 2 minutes
-        reminderTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                checkForDueTasks();
-            }
-        }, 10000, 120000); // Start after 10 seconds, then every 2 minutes
-        
-        System.out.println("Reminder service started - checking every 2 minutes");
+        reminderScheduler.start();
+        System.out.println("Reminder service started - alerts 15 and 5 minutes before each deadline");
     }
     
-    private void checkForDueTasks() {
+    private void onReminderDue(Task task, int thresholdMinutes) {
         if (!traySupported || taskManager == null) return;
         
+        // The task may have been completed or removed since the reminder fired
+        if (task.isCompleted() || !taskManager.containsTask(task)) return;
+        
+        if (reminderRecorder != null) {
+            reminderRecorder.accept(task);
+        }
+        
         try {
-            List<Task> allTasks = taskManager.getAllTasks();
-            LocalDateTime now = LocalDateTime.now();
-            
-            for (Task task : allTasks) {
-                if (!task.isCompleted()) {
-                    long minutesUntilDue = ChronoUnit.MINUTES.between(now, task.getDeadline());
-                    
-                    // Show alert for tasks due within 15 minutes or overdue
-                    if (minutesUntilDue <= 15 && minutesUntilDue >= -60) {
-                        showDeadlineAlert(task, minutesUntilDue);
-                    }
-                }
-            }
+            // Minutes are rounded, so an alert on the 15-minute mark reads "15"
+            long secondsUntilDue = ChronoUnit.SECONDS.between(LocalDateTime.now(), task.getDeadline());
+            showDeadlineAlert(task, Math.round(secondsUntilDue / 60.0));
         } catch (Exception e) {
-            System.err.println("Error checking for due tasks: " + e.getMessage());
+            System.err.println("Error showing deadline alert: " + e.getMessage());
         }
     }
     
@@ -195,7 +188,13 @@ public class TaskSchedulerTray {
         String message;
         TrayIcon.MessageType messageType;
         
-        if (minutesUntilDue <= 0) {
+        if (minutesUntilDue == 0) {
+            // Reached the deadline
+            title = "OVERDUE TASK";
+            message = String.format("'%s' is due now!\nPriority: %d", 
+                task.getTitle(), task.getPriority());
+            messageType = TrayIcon.MessageType.ERROR;
+        } else if (minutesUntilDue < 0) {
             // Overdue task
             title = "OVERDUE TASK";
             message = String.format("'%s' was due %d minutes ago!\nPriority: %d", 
@@ -226,18 +225,15 @@ public class TaskSchedulerTray {
     }
     
     private void flashTrayIcon() {
-        // Create urgent icon (red)
-        Image urgentImage = createUrgentTrayIcon();
-        trayIcon.setImage(urgentImage);
-        
-        // Revert to normal icon after 3 seconds
-        Timer flashTimer = new Timer();
-        flashTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                trayIcon.setImage(createTrayIconImage());
-            }
-        }, 3000);
+        // Switch to the urgent icon (red)
+        trayIcon.setImage(urgentIcon);
+        
+        // Revert to normal icon after 3 seconds; a new alert restarts the countdown
+        if (flashTimer == null) {
+            flashTimer = new Timer(3000, e -> trayIcon.setImage(normalIcon));
+            flashTimer.setRepeats(false);
+        }
+        flashTimer.restart();
     }
     
     private Image createUrgentTrayIcon() {
@@ -290,22 +286,13 @@ public class TaskSchedulerTray {
         if (taskManager == null) return;
         
         try {
-            List<Task> allTasks = taskManager.getAllTasks();
-            long pendingCount = allTasks.stream().mapToLong(t -> t.isCompleted() ? 0 : 1).sum();
-            long overdueCount = 0;
-            long dueTodayCount = 0;
-            
-            LocalDateTime now = LocalDateTime.now();
-            for (Task task : allTasks) {
-                if (!task.isCompleted()) {
-                    long minutesUntilDue = ChronoUnit.MINUTES.between(now, task.getDeadline());
-                    if (minutesUntilDue <= 0) {
-                        overdueCount++;
-                    } else if (minutesUntilDue <= 24 * 60) { // Within 24 hours
-                        dueTodayCount++;
-                    }
-                }
-            }
+            // Counted from the pending deadline index instead of copying every task:
+            // overdue means due within the current minute or earlier
+            int pendingCount = taskManager.getPendingCount();
+            LocalDateTime dueSoon = LocalDateTime.now().plusMinutes(1);
+            int overdueCount = taskManager.countDueBetween(null, false, dueSoon, false, true, false, Integer.MAX_VALUE);
+            int dueTodayCount = taskManager.countDueBetween(dueSoon, true, dueSoon.plusHours(24), false, // Within 24 hours
+                true, false, Integer.MAX_VALUE);
             
             String title = "Task Summary";
             String message = String.format(
@@ -313,7 +300,7 @@ public class TaskSchedulerTray {
                 "Pending: %d\n" +
                 "Due Today: %d\n" +
                 "Overdue: %d",
-                allTasks.size(), pendingCount, dueTodayCount, overdueCount
+                taskManager.getTaskCount(), pendingCount, dueTodayCount, overdueCount
             );
             
             trayIcon.displayMessage(title, message, TrayIcon.MessageType.INFO);
@@ -328,9 +315,9 @@ public class TaskSchedulerTray {
         int option = JOptionPane.showOptionDialog(
             null,
             "Reminder Settings:\n\n" +
-            "• Alerts shown for tasks due within 15 minutes\n" +
-            "• Overdue tasks shown for up to 1 hour\n" +
-            "• Checks every 2 minutes\n" +
+            "• Alerts shown 15 and 5 minutes before a deadline\n" +
+            "• Overdue alert shown when the deadline passes\n" +
+            "• Missed alerts shown for up to 1 hour\n" +
             "• Double-click tray icon to show main window\n\n" +
             "Would you like to disable reminders?",
             "Reminder Settings",
@@ -350,15 +337,26 @@ public class TaskSchedulerTray {
     }
     
     private void stopReminderService() {
-        if (reminderTimer != null) {
-            reminderTimer.cancel();
-            reminderTimer = null;
+        if (reminderScheduler != null && reminderScheduler.isRunning()) {
+            reminderScheduler.stop();
             System.out.println("Reminder service stopped");
         }
     }
     
     public void updateTaskManager(TaskManager newTaskManager) {
         this.taskManager = newTaskManager;
+        // Re-registers reminders only when the manager was actually replaced
+        if (reminderScheduler != null) {
+            reminderScheduler.attach(newTaskManager);
+        }
+    }
+    
+    /**
+     * Sets a callback run on the EDT for each reminder shown, after the task
+     * has recorded it, so the reminder state can be saved
+     */
+    public void setReminderRecorder(Consumer<Task> recorder) {
+        this.reminderRecorder = recorder;
     }
     
     public boolean isTraySupported() {
@@ -373,6 +371,9 @@ public class TaskSchedulerTray {
     
     public void cleanup() {
         stopReminderService();
+        if (flashTimer != null) {
+            flashTimer.stop();
+        }
         if (traySupported && trayIcon != null) {
             systemTray.remove(trayIcon);
         }
@@ -0,0 +1,625 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Compact priority queue of tasks for very large task lists, stored as
+ * primitive columns instead of one Task object graph per task.
+ *
+ * A Task costs a String, a LocalDateTime (with its LocalDate and LocalTime)
+ * and the Task itself, well over 100 bytes before its title, and TaskManager
+ * adds a heap node and index entries on top. Here a task is one row across
+ * int/long arrays, a bit in a BitSet and its title's UTF-8 bytes in a shared
+ * pool, with the queue a heap of row numbers and ids mapped to rows by an
+ * open-addressing table of primitives. Deadlines are kept to the second.
+ *
+ * Tasks are handed out as views: Task subclasses that read and write the
+ * columns of their row, so they work with any code that takes a Task
+ * (filters, writers, the table model). Setting a value on a view updates the
+ * store and its queue order at once; no updateTask call is needed. A view
+ * stays valid until its task is removed. Tasks handed in are copied, and
+ * later changes to them do not reach the store.
+ *
+ * Like TaskManager, a TaskStore must only be used from one thread at a time.
+ */
+public class TaskStore {
+    // Deadline value of a task without one
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    // Largest title pool an array can hold
+    private static final int MAX_TITLE_BYTES = Integer.MAX_VALUE - 8;
+    
+    // Columns, one entry per row; rows 0..size-1 are in use, and removing a
+    // row moves the last row into its place
+    private long[] ids;
+    private int[] priorities;
+    private long[] deadlines;
+    private byte[] remindersSent;
+    private int[] titleStarts;
+    private int[] titleLengths;
+    private final BitSet completed = new BitSet();
+    private int size;
+    private int completedCount;
+    
+    // Titles of all rows back to back; an edited or removed title leaves its
+    // bytes behind until the pool is compacted
+    private byte[] titleBytes = new byte[256];
+    private int titleEnd;
+    private int titleGarbage;
+    
+    // Queue order: a binary heap of rows, and the heap slot of every row
+    private int[] heap;
+    private int[] slots;
+    
+    // id -> row by linear probing; a row entry of 0 is free, others are row + 1
+    private long[] tableIds;
+    private int[] tableRows;
+    
+    // Constructor
+    public TaskStore() {
+        this(INITIAL_CAPACITY);
+    }
+    
+    // Constructor sized for an expected number of tasks
+    public TaskStore(int expectedSize) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedSize);
+        ids = new long[capacity];
+        priorities = new int[capacity];
+        deadlines = new long[capacity];
+        remindersSent = new byte[capacity];
+        titleStarts = new int[capacity];
+        titleLengths = new int[capacity];
+        heap = new int[capacity];
+        slots = new int[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, capacity + capacity / 3) - 1) << 1;
+        tableIds = new long[tableSize];
+        tableRows = new int[tableSize];
+    }
+    
+    // Add a copy of a task to the queue (an already stored id takes the task's values)
+    public void addTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        int row = rowOf(task.getId());
+        if (row >= 0) {
+            update(row, task.getTitle(), task.getPriority(), task.getDeadline());
+            setCompleted(row, task.isCompleted());
+            return;
+        }
+        
+        ensureCapacity(size + 1);
+        row = size++;
+        ids[row] = task.getId();
+        priorities[row] = task.getPriority();
+        deadlines[row] = toSeconds(task.getDeadline());
+        remindersSent[row] = task.getRemindersSent();
+        titleLengths[row] = -1;
+        putTitle(row, task.getTitle());
+        if (task.isCompleted()) {
+            completed.set(row);
+            completedCount++;
+        }
+        putRow(row);
+        heap[row] = row;
+        slots[row] = row;
+        siftUp(row);
+    }
+    
+    // Remove and return the highest priority task, as a detached Task
+    public Task getNextTask() {
+        if (size == 0) {
+            return null;
+        }
+        int row = heap[0];
+        Task task = copyOf(row);
+        removeRow(row);
+        return task;
+    }
+    
+    // Peek at the highest priority task without removing it
+    public Task peekNextTask() {
+        return size == 0 ? null : new View(heap[0]);
+    }
+    
+    // Look up a stored task by id, or null
+    public Task findById(long id) {
+        int row = rowOf(id);
+        return row < 0 ? null : new View(row);
+    }
+    
+    public boolean containsId(long id) {
+        return rowOf(id) >= 0;
+    }
+    
+    // Remove the task with the given id, returning a detached copy (or null if not stored)
+    public Task removeById(long id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return null;
+        }
+        Task task = copyOf(row);
+        removeRow(row);
+        return task;
+    }
+    
+    // Apply new values to a stored task and move it to its new position
+    public boolean updateTask(long id, String title, int priority, LocalDateTime deadline) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        update(row, title, priority, deadline);
+        return true;
+    }
+    
+    // Mark a stored task completed or pending
+    public boolean setTaskCompleted(long id, boolean isCompleted) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return false;
+        }
+        setCompleted(row, isCompleted);
+        return true;
+    }
+    
+    public int getTaskCount() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getCompletedCount() {
+        return completedCount;
+    }
+    
+    public int getPendingCount() {
+        return size - completedCount;
+    }
+    
+    /**
+     * Passes every task to the action in storage order through a single
+     * reused view, so nothing is allocated per task. The view must not be
+     * kept, and tasks must not be added or removed until the walk is done.
+     */
+    public void forEach(Consumer<? super Task> action) {
+        View cursor = new View(0);
+        for (int row = 0; row < size; row++) {
+            cursor.moveTo(row);
+            action.accept(cursor);
+        }
+    }
+    
+    // Get views of the tasks matching a condition, in storage order
+    public List<Task> findAll(Predicate<? super Task> condition) {
+        List<Task> matches = new ArrayList<>();
+        View cursor = new View(0);
+        for (int row = 0; row < size; row++) {
+            cursor.moveTo(row);
+            if (condition.test(cursor)) {
+                matches.add(new View(row));
+            }
+        }
+        return matches;
+    }
+    
+    // Get detached copies of all tasks in storage order, e.g. for saving
+    public List<Task> toTasks() {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            tasks.add(copyOf(row));
+        }
+        return tasks;
+    }
+    
+    // Clear all tasks
+    public void clearAllTasks() {
+        size = 0;
+        completed.clear();
+        completedCount = 0;
+        titleEnd = 0;
+        titleGarbage = 0;
+        Arrays.fill(tableRows, 0);
+    }
+    
+    /**
+     * A stored task, read and written through the columns of its row. Rows
+     * move when other tasks are removed, so the row is only a hint that is
+     * checked against the id and looked up again if it no longer matches.
+     */
+    private final class View extends Task {
+        private long viewId;
+        private int row;
+        
+        View(int row) {
+            super(0, null, 0, null);
+            moveTo(row);
+        }
+        
+        void moveTo(int row) {
+            this.row = row;
+            this.viewId = ids[row];
+        }
+        
+        private int row() {
+            if (row >= size || ids[row] != viewId) {
+                row = rowOf(viewId);
+                if (row < 0) {
+                    throw new IllegalStateException("Task " + viewId + " is no longer stored");
+                }
+            }
+            return row;
+        }
+        
+        @Override
+        public long getId() {
+            return viewId;
+        }
+        
+        @Override
+        public String getTitle() {
+            return titleOf(row());
+        }
+        
+        @Override
+        public int getPriority() {
+            return priorities[row()];
+        }
+        
+        @Override
+        public LocalDateTime getDeadline() {
+            return toDeadline(deadlines[row()]);
+        }
+        
+        @Override
+        public boolean isCompleted() {
+            return completed.get(row());
+        }
+        
+        @Override
+        public void setTitle(String title) {
+            int current = row();
+            update(current, title, priorities[current], toDeadline(deadlines[current]));
+        }
+        
+        @Override
+        public void setPriority(int priority) {
+            int current = row();
+            update(current, titleOf(current), priority, toDeadline(deadlines[current]));
+        }
+        
+        @Override
+        public void setDeadline(LocalDateTime deadline) {
+            int current = row();
+            update(current, titleOf(current), priorities[current], deadline);
+        }
+        
+        @Override
+        public void setCompleted(boolean isCompleted) {
+            TaskStore.this.setCompleted(row(), isCompleted);
+        }
+        
+        @Override
+        public boolean isReminderSent(int threshold) {
+            return (remindersSent[row()] & (1 << threshold)) != 0;
+        }
+        
+        @Override
+        public void markReminderSent(int threshold) {
+            remindersSent[row()] |= 1 << threshold;
+        }
+        
+        @Override
+        public byte getRemindersSent() {
+            return remindersSent[row()];
+        }
+        
+        @Override
+        public void setRemindersSent(byte sent) {
+            remindersSent[row()] = sent;
+        }
+        
+        @Override
+        public Task copy() {
+            return copyOf(row());
+        }
+        
+        @Override
+        public Task copyWithNewId() {
+            int row = row();
+            Task task = new Task(titleOf(row), priorities[row], toDeadline(deadlines[row]));
+            task.setCompleted(completed.get(row));
+            task.setRemindersSent(remindersSent[row]);
+            return task;
+        }
+        
+        @Override
+        public String toString() {
+            return copy().toString();
+        }
+    }
+    
+    // Detached Task with a row's values and id
+    private Task copyOf(int row) {
+        Task task = new Task(ids[row], titleOf(row), priorities[row], toDeadline(deadlines[row]));
+        task.setCompleted(completed.get(row));
+        task.setRemindersSent(remindersSent[row]);
+        return task;
+    }
+    
+    private void update(int row, String title, int priority, LocalDateTime deadline) {
+        long seconds = toSeconds(deadline);
+        if (seconds != deadlines[row]) {
+            // A new deadline gets a fresh set of reminders, as in Task
+            remindersSent[row] = 0;
+        }
+        if (!titleEquals(row, title)) {
+            dropTitle(row);
+            putTitle(row, title);
+        }
+        if (priority != priorities[row] || seconds != deadlines[row]) {
+            priorities[row] = priority;
+            deadlines[row] = seconds;
+            int slot = slots[row];
+            if (siftUp(slot) == slot) {
+                siftDown(slot);
+            }
+        }
+    }
+    
+    private void setCompleted(int row, boolean isCompleted) {
+        if (completed.get(row) != isCompleted) {
+            completed.set(row, isCompleted);
+            completedCount += isCompleted ? 1 : -1;
+        }
+    }
+    
+    // Remove a row from the heap and the id table, then fill its place with the last row
+    private void removeRow(int row) {
+        int slot = slots[row];
+        int lastSlot = size - 1;
+        if (slot != lastSlot) {
+            heap[slot] = heap[lastSlot];
+            slots[heap[slot]] = slot;
+        }
+        deleteRow(ids[row]);
+        dropTitle(row);
+        setCompleted(row, false);
+        
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            priorities[row] = priorities[last];
+            deadlines[row] = deadlines[last];
+            remindersSent[row] = remindersSent[last];
+            titleStarts[row] = titleStarts[last];
+            titleLengths[row] = titleLengths[last];
+            completed.set(row, completed.get(last));
+            completed.clear(last);
+            heap[slots[last]] = row;
+            slots[row] = slots[last];
+            putRow(row);
+        }
+        
+        // The slot now holds another row, which may belong above or below it
+        if (slot < size) {
+            if (siftUp(slot) == slot) {
+                siftDown(slot);
+            }
+        }
+    }
+    
+    // Queue order: priority (highest first), then deadline (earliest first), then id
+    private boolean before(int row1, int row2) {
+        if (priorities[row1] != priorities[row2]) {
+            return priorities[row1] > priorities[row2];
+        }
+        if (deadlines[row1] != deadlines[row2]) {
+            return deadlines[row1] < deadlines[row2];
+        }
+        return ids[row1] < ids[row2];
+    }
+    
+    private int siftUp(int slot) {
+        int row = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentRow = heap[parent];
+            if (!before(row, parentRow)) {
+                break;
+            }
+            heap[slot] = parentRow;
+            slots[parentRow] = slot;
+            slot = parent;
+        }
+        heap[slot] = row;
+        slots[row] = slot;
+        return slot;
+    }
+    
+    private void siftDown(int slot) {
+        int row = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && before(heap[right], heap[child])) {
+                child = right;
+            }
+            int childRow = heap[child];
+            if (!before(childRow, row)) {
+                break;
+            }
+            heap[slot] = childRow;
+            slots[childRow] = slot;
+            slot = child;
+        }
+        heap[slot] = row;
+        slots[row] = slot;
+    }
+    
+    // Title pool: UTF-8 bytes, with a length of -1 for a null title
+    private String titleOf(int row) {
+        int length = titleLengths[row];
+        return length < 0 ? null : new String(titleBytes, titleStarts[row], length, StandardCharsets.UTF_8);
+    }
+    
+    private boolean titleEquals(int row, String title) {
+        if (title == null || titleLengths[row] < 0) {
+            return title == null && titleLengths[row] < 0;
+        }
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != titleLengths[row]) {
+            return false;
+        }
+        int start = titleStarts[row];
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != titleBytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void putTitle(int row, String title) {
+        if (title == null) {
+            titleLengths[row] = -1;
+            return;
+        }
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        if (titleEnd + bytes.length > titleBytes.length) {
+            makeRoomForTitle(bytes.length);
+        }
+        System.arraycopy(bytes, 0, titleBytes, titleEnd, bytes.length);
+        titleStarts[row] = titleEnd;
+        titleLengths[row] = bytes.length;
+        titleEnd += bytes.length;
+    }
+    
+    private void dropTitle(int row) {
+        if (titleLengths[row] > 0) {
+            titleGarbage += titleLengths[row];
+        }
+        titleLengths[row] = -1;
+    }
+    
+    // Grow the pool, or compact it instead once at least half of it is garbage
+    private void makeRoomForTitle(int length) {
+        long needed = (long) titleEnd - titleGarbage + length;
+        if (needed > MAX_TITLE_BYTES) {
+            throw new IllegalStateException("Title pool is full");
+        }
+        if (titleGarbage < titleEnd / 2 && (long) titleEnd + length <= MAX_TITLE_BYTES) {
+            long capacity = Math.max((long) titleEnd + length, titleBytes.length + (titleBytes.length >> 1));
+            titleBytes = Arrays.copyOf(titleBytes, (int) Math.min(capacity, MAX_TITLE_BYTES));
+            return;
+        }
+        
+        // Copy live titles to the front of a new pool, in row order
+        byte[] pool = new byte[(int) Math.min(Math.max(needed + (needed >> 1), 256), MAX_TITLE_BYTES)];
+        int end = 0;
+        for (int row = 0; row < size; row++) {
+            int titleLength = titleLengths[row];
+            if (titleLength > 0) {
+                System.arraycopy(titleBytes, titleStarts[row], pool, end, titleLength);
+                titleStarts[row] = end;
+                end += titleLength;
+            }
+        }
+        titleBytes = pool;
+        titleEnd = end;
+        titleGarbage = 0;
+    }
+    
+    // Deadlines as epoch seconds of the local date-time read as UTC
+    private static long toSeconds(LocalDateTime deadline) {
+        return deadline == null ? NO_DEADLINE : deadline.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private static LocalDateTime toDeadline(long seconds) {
+        return seconds == NO_DEADLINE ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+    
+    // Id table: linear probing, with removals shifting later entries back
+    private int rowOf(long id) {
+        int mask = tableIds.length - 1;
+        for (int index = hash(id) & mask; tableRows[index] != 0; index = (index + 1) & mask) {
+            if (tableIds[index] == id) {
+                return tableRows[index] - 1;
+            }
+        }
+        return -1;
+    }
+    
+    // Point a row's id at the row, adding the id if it is new
+    private void putRow(int row) {
+        long id = ids[row];
+        int mask = tableIds.length - 1;
+        int index = hash(id) & mask;
+        while (tableRows[index] != 0 && tableIds[index] != id) {
+            index = (index + 1) & mask;
+        }
+        tableIds[index] = id;
+        tableRows[index] = row + 1;
+    }
+    
+    private void deleteRow(long id) {
+        int mask = tableIds.length - 1;
+        int index = hash(id) & mask;
+        while (tableIds[index] != id || tableRows[index] == 0) {
+            index = (index + 1) & mask;
+        }
+        // Shift back later entries of the probe run that could live in the gap
+        int gap = index;
+        for (int next = (gap + 1) & mask; tableRows[next] != 0; next = (next + 1) & mask) {
+            int home = hash(tableIds[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                tableIds[gap] = tableIds[next];
+                tableRows[gap] = tableRows[next];
+                gap = next;
+            }
+        }
+        tableRows[gap] = 0;
+    }
+    
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+    
+    private void ensureCapacity(int needed) {
+        if (needed > ids.length) {
+            int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            remindersSent = Arrays.copyOf(remindersSent, capacity);
+            titleStarts = Arrays.copyOf(titleStarts, capacity);
+            titleLengths = Arrays.copyOf(titleLengths, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        // Keep the id table at most three quarters full
+        if (needed > tableIds.length - tableIds.length / 4) {
+            long[] oldIds = tableIds;
+            int[] oldRows = tableRows;
+            tableIds = new long[oldIds.length * 2];
+            tableRows = new int[oldIds.length * 2];
+            for (int index = 0; index < oldIds.length; index++) {
+                if (oldRows[index] != 0) {
+                    putRow(oldRows[index] - 1);
+                }
+            }
+        }
+    }
+}
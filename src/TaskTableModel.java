@@ -0,0 +1,186 @@
+import javax.swing.table.AbstractTableModel;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table model that reads cells straight from a list of tasks, or live from a
+ * TaskManager's queue.
+ * Nothing is copied or formatted up front: JTable asks only for the rows it
+ * paints, so showing a new list costs one change event regardless of its
+ * size, and a deadline is formatted only when its cell is rendered. While the
+ * queue is shown, each mutation arrives as the few position changes it made
+ * and is applied as row inserts, deletes and updates instead of a rebuild.
+ * Rows map back to tasks in O(1) both ways, by row and by task id, so the
+ * selected task never has to be looked up in a copy of the queue.
+ */
+public class TaskTableModel extends AbstractTableModel implements TaskManager.PositionListener {
+    
+    public static final int PRIORITY_COLUMN = 0;
+    public static final int TITLE_COLUMN = 1;
+    public static final int DEADLINE_COLUMN = 2;
+    public static final int STATUS_COLUMN = 3;
+    
+    private static final String[] COLUMN_NAMES = {"Priority", "Title", "Deadline", "Status"};
+    private static final DateTimeFormatter DEADLINE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+    
+    // Rows in display order; owned by the model once passed to setTasks
+    private List<Task> tasks = new ArrayList<>();
+    
+    // Queue shown live instead of the list, or null
+    private TaskManager queue;
+    
+    // Row of each task id in the list, built on the first lookup
+    private Map<Long, Integer> rowsById;
+    
+    /**
+     * Shows the given tasks, replacing the current rows with a single event
+     * @param newTasks List to display; the model keeps it rather than copying
+     *        it, so the caller must not modify it afterwards
+     */
+    public void setTasks(List<Task> newTasks) {
+        detachQueue();
+        tasks = newTasks;
+        rowsById = null;
+        fireTableDataChanged();
+    }
+    
+    /**
+     * Shows every task of the TaskManager in queue position order and follows
+     * its changes from now on; does nothing if it is already shown
+     */
+    public void showQueue(TaskManager taskManager) {
+        if (queue == taskManager) {
+            return;
+        }
+        detachQueue();
+        tasks = null;
+        rowsById = null;
+        queue = taskManager;
+        queue.addPositionListener(this);
+        fireTableDataChanged();
+    }
+    
+    public boolean isShowingQueue() {
+        return queue != null;
+    }
+    
+    /**
+     * Appends tasks below the current rows with a single event
+     */
+    public void appendTasks(List<Task> newTasks) {
+        if (newTasks.isEmpty()) {
+            return;
+        }
+        if (queue != null) {
+            // Freeze the queue rows into a list to append to
+            List<Task> queued = queue.getAllTasks();
+            detachQueue();
+            tasks = queued;
+        } else if (!(tasks instanceof ArrayList)) {
+            tasks = new ArrayList<>(tasks);
+        }
+        int firstRow = tasks.size();
+        tasks.addAll(newTasks);
+        rowsById = null;
+        fireTableRowsInserted(firstRow, tasks.size() - 1);
+    }
+    
+    /**
+     * Gets the task shown in a row in O(1)
+     * @param row Row index in the model, not the view
+     */
+    public Task getTaskAt(int row) {
+        return queue != null ? queue.getTaskAt(row) : tasks.get(row);
+    }
+    
+    /**
+     * Finds the row showing the task with the given id
+     * @param taskId Id of the task
+     * @return Row index in the model, or -1 if the task is not shown
+     */
+    public int getRowOf(long taskId) {
+        if (queue != null) {
+            return queue.getPositionById(taskId);
+        }
+        if (rowsById == null) {
+            rowsById = new HashMap<>(tasks.size() * 4 / 3 + 1);
+            for (int row = 0; row < tasks.size(); row++) {
+                rowsById.put(tasks.get(row).getId(), row);
+            }
+        }
+        Integer row = rowsById.get(taskId);
+        return row != null ? row : -1;
+    }
+    
+    public void clear() {
+        setTasks(new ArrayList<>());
+    }
+    
+    private void detachQueue() {
+        if (queue != null) {
+            queue.removePositionListener(this);
+            queue = null;
+        }
+    }
+    
+    @Override
+    public void positionsInserted(int first, int last) {
+        fireTableRowsInserted(first, last);
+    }
+    
+    @Override
+    public void positionsRemoved(int first, int last) {
+        fireTableRowsDeleted(first, last);
+    }
+    
+    @Override
+    public void positionsChanged(int first, int last) {
+        fireTableRowsUpdated(first, last);
+    }
+    
+    @Override
+    public void positionsReset() {
+        fireTableDataChanged();
+    }
+    
+    @Override
+    public int getRowCount() {
+        return queue != null ? queue.getTaskCount() : tasks.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column == PRIORITY_COLUMN) return Integer.class; // Priority column for sorting
+        return String.class;
+    }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        Task task = getTaskAt(row);
+        switch (column) {
+            case PRIORITY_COLUMN: return task.getPriority();
+            case TITLE_COLUMN: return task.getTitle();
+            case DEADLINE_COLUMN: return task.getDeadline().format(DEADLINE_FORMAT);
+            case STATUS_COLUMN: return task.isCompleted() ? "Completed" : "Pending";
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel.
+ * Timeouts are hashed by expiry tick into one of four wheels of 64 slots
+ * (1, 64, 4096 and 262144 ticks per slot); each slot is a doubly linked list,
+ * so scheduling and cancelling are O(1). When a lower wheel completes a turn
+ * the matching slot of the next wheel is cascaded down, so each timeout is
+ * moved at most once per level before it expires. Timeouts beyond the top
+ * wheel wait in an overflow list that is re-hashed once per top-wheel turn.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public class TimerWheel<T> {
+    
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout<T>[][] wheels;
+    private final Timeout<T> overflow;
+    private long currentTick;
+    private int size;
+    
+    /**
+     * Handle for one scheduled item
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long expiryTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        
+        private Timeout(T item, long expiryTick) {
+            this.item = item;
+            this.expiryTick = expiryTick;
+        }
+        
+        public T getItem() {
+            return item;
+        }
+        
+        public boolean isScheduled() {
+            return prev != null;
+        }
+    }
+    
+    /**
+     * Creates an empty wheel
+     * @param tickMillis resolution; timeouts expire on the first tick at or after their time
+     * @param startMillis current time in epoch milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.wheels = (Timeout<T>[][]) new Timeout<?>[LEVELS][SLOTS];
+        for (Timeout<T>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = newSentinel();
+            }
+        }
+        this.overflow = newSentinel();
+    }
+    
+    /**
+     * Schedules an item; a time that has already passed expires on the next tick
+     * @param expiresAtMillis epoch milliseconds
+     * @return handle for cancel()
+     */
+    public Timeout<T> schedule(T item, long expiresAtMillis) {
+        long tick = Math.floorDiv(expiresAtMillis - startMillis + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(item, Math.max(tick, currentTick + 1));
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+    
+    /**
+     * Removes a scheduled timeout in O(1)
+     * @return false if it had already expired or been cancelled
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || !timeout.isScheduled()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+    
+    /**
+     * Advances the wheel to the given time, handing every expired item to the
+     * consumer in expiry order (items on the same tick in no particular order)
+     */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            
+            Timeout<T> head = wheels[0][(int) (currentTick & SLOT_MASK)];
+            while (head.next != head) {
+                Timeout<T> timeout = head.next;
+                unlink(timeout);
+                size--;
+                expired.accept(timeout.item);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of scheduled timeouts
+     */
+    public int size() {
+        return size;
+    }
+    
+    // Re-hash the higher-level slots whose span starts at the current tick
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = level * SLOT_BITS;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            rehash(wheels[level][(int) ((currentTick >>> shift) & SLOT_MASK)]);
+        }
+        if ((currentTick & ((1L << (LEVELS * SLOT_BITS)) - 1)) == 0) {
+            rehash(overflow);
+        }
+    }
+    
+    private void rehash(Timeout<T> head) {
+        Timeout<T> timeout = head.next;
+        head.next = head;
+        head.prev = head;
+        while (timeout != head) {
+            Timeout<T> following = timeout.next;
+            insert(timeout);
+            timeout = following;
+        }
+    }
+    
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.expiryTick - currentTick;
+        Timeout<T> head = overflow;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << ((level + 1) * SLOT_BITS)) {
+                head = wheels[level][(int) ((timeout.expiryTick >>> (level * SLOT_BITS)) & SLOT_MASK)];
+                break;
+            }
+        }
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+    
+    private static <T> void unlink(Timeout<T> timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+    
+    // Empty list head; a slot is empty when its sentinel links to itself
+    private Timeout<T> newSentinel() {
+        Timeout<T> sentinel = new Timeout<>(null, 0);
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+        return sentinel;
+    }
+}
@@ -0,0 +1,566 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Inverted index over task titles for type-ahead search.
+ * Titles are split into lower-case words (runs of letters and digits), and
+ * each word maps to a sorted array of the ids of the tasks that use it. A
+ * query matches the tasks whose title has, for every query term, a word
+ * starting with that term. Only the rarest term is read from the index; the
+ * other terms are checked against each candidate's own words, so a query
+ * costs about as much as its most selective term.
+ *
+ * Not thread-safe; TaskManager keeps it in step with its tasks.
+ */
+public class TitleIndex {
+    
+    // Tasks using one word, ids kept sorted for binary search. Removed ids
+    // stay in place until they outnumber the live ones, so removing a task
+    // from a common word does not shift the whole array; searches already
+    // check every candidate against its current words and skip them.
+    private static final class Postings {
+        final String word;
+        long[] ids = new long[2];
+        int size;
+        int live;
+        
+        Postings(String word) {
+            this.word = word;
+        }
+        
+        void add(long id) {
+            live++;
+            // New tasks have the highest ids, so this is almost always an append
+            int slot = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (slot >= 0 && slot < size) {
+                return; // Still present from before its last removal
+            }
+            int insertAt = slot >= 0 ? slot : -slot - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+        
+        void remove() {
+            live--;
+        }
+        
+        boolean needsCompaction() {
+            return size > 2 * live + 8;
+        }
+    }
+    
+    // A candidate task with the signals it is ranked by
+    private static final class Match {
+        final long id;
+        final int distance;
+        final int exactTerms;
+        final int firstPosition;
+        final int wordCount;
+        
+        Match(long id, int distance, int exactTerms, int firstPosition, int wordCount) {
+            this.id = id;
+            this.distance = distance;
+            this.exactTerms = exactTerms;
+            this.firstPosition = firstPosition;
+            this.wordCount = wordCount;
+        }
+    }
+    
+    // Best first: fewest typos, more terms matching whole words, first term
+    // earlier in the title, shorter title, then older task
+    private static final Comparator<Match> BY_RANK = new Comparator<Match>() {
+        @Override
+        public int compare(Match m1, Match m2) {
+            if (m1.distance != m2.distance) {
+                return Integer.compare(m1.distance, m2.distance);
+            }
+            if (m1.exactTerms != m2.exactTerms) {
+                return Integer.compare(m2.exactTerms, m1.exactTerms);
+            }
+            if (m1.firstPosition != m2.firstPosition) {
+                return Integer.compare(m1.firstPosition, m2.firstPosition);
+            }
+            if (m1.wordCount != m2.wordCount) {
+                return Integer.compare(m1.wordCount, m2.wordCount);
+            }
+            return Long.compare(m1.id, m2.id);
+        }
+    };
+    
+    // Every word twice: hashed for indexing, sorted for prefix lookups
+    private final Map<String, Postings> postingsByWord = new HashMap<>();
+    private final NavigableMap<String, Postings> sortedWords = new TreeMap<>();
+    
+    // Words containing each trigram, for fuzzy lookups; words made only of
+    // digits are left out, as a typo in a number says nothing about the task
+    private final Map<String, Set<Postings>> wordsByTrigram = new HashMap<>();
+    
+    // The words of each indexed title, in title order (shared with postingsByWord)
+    private final Map<Long, Postings[]> wordsById = new HashMap<>();
+    
+    /**
+     * Indexes a task title, replacing the previous title of the same task;
+     * does nothing if the words are unchanged
+     */
+    public void put(long id, String title) {
+        List<String> words = tokenize(title);
+        Postings[] previous = wordsById.get(id);
+        if (previous != null && sameWords(previous, words)) {
+            return;
+        }
+        if (previous != null) {
+            remove(id);
+        }
+        
+        Postings[] postings = new Postings[words.size()];
+        for (int i = 0; i < postings.length; i++) {
+            String word = words.get(i);
+            Postings wordPostings = postingsByWord.get(word);
+            if (wordPostings == null) {
+                wordPostings = new Postings(word);
+                postingsByWord.put(word, wordPostings);
+                sortedWords.put(word, wordPostings);
+                addTrigrams(wordPostings);
+            }
+            wordPostings.add(id);
+            postings[i] = wordPostings;
+        }
+        wordsById.put(id, postings);
+    }
+    
+    /**
+     * Removes a task from the index
+     */
+    public void remove(long id) {
+        Postings[] postings = wordsById.remove(id);
+        if (postings == null) {
+            return;
+        }
+        for (Postings wordPostings : postings) {
+            wordPostings.remove();
+            if (wordPostings.live == 0) {
+                postingsByWord.remove(wordPostings.word);
+                sortedWords.remove(wordPostings.word);
+                removeTrigrams(wordPostings);
+            } else if (wordPostings.needsCompaction()) {
+                compact(wordPostings);
+            }
+        }
+    }
+    
+    // Drop the ids of tasks that no longer use the word
+    private void compact(Postings postings) {
+        int kept = 0;
+        for (int i = 0; i < postings.size; i++) {
+            long id = postings.ids[i];
+            Postings[] words = wordsById.get(id);
+            if (words != null && Arrays.asList(words).contains(postings)) {
+                postings.ids[kept++] = id;
+            }
+        }
+        postings.size = kept;
+        if (kept < postings.ids.length / 4) {
+            postings.ids = Arrays.copyOf(postings.ids, Math.max(2, kept * 2));
+        }
+    }
+    
+    public void clear() {
+        postingsByWord.clear();
+        sortedWords.clear();
+        wordsByTrigram.clear();
+        wordsById.clear();
+    }
+    
+    /**
+     * Gets the number of indexed tasks
+     */
+    public int size() {
+        return wordsById.size();
+    }
+    
+    /**
+     * Gets the number of distinct words in the index
+     */
+    public int getWordCount() {
+        return postingsByWord.size();
+    }
+    
+    /**
+     * Finds tasks whose title has a word starting with every query term
+     * @param query Search text; split into terms like titles are
+     * @param limit Maximum number of results
+     * @return Ids of matching tasks, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        // Drive the search from the term with the fewest postings; longer
+        // terms tend to be rarer, so trying them first tightens the cap early
+        List<String> byLength = new ArrayList<>(terms);
+        byLength.sort((t1, t2) -> Integer.compare(t2.length(), t1.length()));
+        String driver = null;
+        long driverCount = Long.MAX_VALUE;
+        for (String term : byLength) {
+            long count = countPostings(term, driverCount);
+            if (count < driverCount) {
+                driver = term;
+                driverCount = count;
+            }
+        }
+        if (driverCount == 0) {
+            return Collections.emptyList();
+        }
+        
+        return rank(candidates(wordsStartingWith(driver).values()), id -> match(id, terms), limit);
+    }
+    
+    /**
+     * Finds tasks whose title has, for every query term, a word starting with
+     * the term or a word within a small edit distance of it: none for terms
+     * of up to 2 characters, 1 for up to 5 and 2 for longer ones
+     * ("wekly reprt" finds "Weekly report"). Candidate words come from the
+     * trigram index and are confirmed with a bounded edit distance, so only
+     * words that share enough trigrams with a term are ever compared.
+     * @param query Search text; split into terms like titles are
+     * @param limit Maximum number of results
+     * @return Ids of matching tasks, closest match first
+     */
+    public List<Long> searchFuzzy(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        // Every word each term accepts, with its distance (0 for a prefix match)
+        List<Map<Postings, Integer>> accepted = new ArrayList<>(terms.size());
+        Map<Postings, Integer> driver = null;
+        long driverCount = Long.MAX_VALUE;
+        for (String term : terms) {
+            Map<Postings, Integer> words = similarWords(term);
+            accepted.add(words);
+            long count = 0;
+            for (Postings postings : words.keySet()) {
+                count += postings.live;
+            }
+            if (count < driverCount) {
+                driver = words;
+                driverCount = count;
+            }
+        }
+        if (driverCount == 0) {
+            return Collections.emptyList();
+        }
+        
+        return rank(candidates(driver.keySet()), id -> fuzzyMatch(id, terms, accepted), limit);
+    }
+    
+    // Keep the best matches among the candidates, best first
+    private static List<Long> rank(long[] candidates, LongFunction<Match> matcher, int limit) {
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 64), BY_RANK.reversed());
+        for (long id : candidates) {
+            Match match = matcher.apply(id);
+            if (match == null) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (BY_RANK.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        }
+        
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(BY_RANK);
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Match match : ranked) {
+            ids.add(match.id);
+        }
+        return ids;
+    }
+    
+    // Total postings of the words starting with the term, counted up to the cap
+    private long countPostings(String term, long cap) {
+        long count = 0;
+        for (Postings postings : wordsStartingWith(term).values()) {
+            count += postings.live;
+            if (count >= cap) {
+                break;
+            }
+        }
+        return count;
+    }
+    
+    // Ids of tasks using any of the words, each id once; may include tasks
+    // that have since dropped the word or been removed
+    private static long[] candidates(Collection<Postings> words) {
+        if (words.size() == 1) {
+            Postings postings = words.iterator().next();
+            return Arrays.copyOf(postings.ids, postings.size);
+        }
+        
+        int total = 0;
+        for (Postings postings : words) {
+            total += postings.size;
+        }
+        long[] ids = new long[total];
+        int filled = 0;
+        for (Postings postings : words) {
+            System.arraycopy(postings.ids, 0, ids, filled, postings.size);
+            filled += postings.size;
+        }
+        // A title can hold several of the words
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (unique == 0 || ids[unique - 1] != ids[i]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+    
+    // Rank one candidate, or null if some term matches none of its words
+    private Match match(long id, List<String> terms) {
+        Postings[] words = wordsById.get(id);
+        if (words == null) {
+            return null;
+        }
+        int exactTerms = 0;
+        int firstPosition = -1;
+        for (String term : terms) {
+            int position = -1;
+            boolean exact = false;
+            for (int i = 0; i < words.length && !exact; i++) {
+                String word = words[i].word;
+                if (word.startsWith(term)) {
+                    if (position < 0) {
+                        position = i;
+                    }
+                    exact = word.length() == term.length();
+                }
+            }
+            if (position < 0) {
+                return null;
+            }
+            if (exact) {
+                exactTerms++;
+            }
+            if (firstPosition < 0) {
+                firstPosition = position;
+            }
+        }
+        return new Match(id, 0, exactTerms, firstPosition, words.length);
+    }
+    
+    // Rank one candidate by its closest word for each term, or null if some
+    // term accepts none of its words
+    private Match fuzzyMatch(long id, List<String> terms, List<Map<Postings, Integer>> accepted) {
+        Postings[] words = wordsById.get(id);
+        if (words == null) {
+            return null;
+        }
+        int distance = 0;
+        int exactTerms = 0;
+        int firstPosition = -1;
+        for (int t = 0; t < terms.size(); t++) {
+            Map<Postings, Integer> termWords = accepted.get(t);
+            int best = Integer.MAX_VALUE;
+            int position = -1;
+            boolean exact = false;
+            for (int i = 0; i < words.length; i++) {
+                Integer wordDistance = termWords.get(words[i]);
+                if (wordDistance != null && wordDistance < best) {
+                    best = wordDistance;
+                    position = i;
+                }
+                exact |= words[i].word.equals(terms.get(t));
+            }
+            if (position < 0) {
+                return null;
+            }
+            distance += best;
+            if (exact) {
+                exactTerms++;
+            }
+            if (firstPosition < 0) {
+                firstPosition = position;
+            }
+        }
+        return new Match(id, distance, exactTerms, firstPosition, words.length);
+    }
+    
+    // Words starting with the term (distance 0) or within its edit distance bound
+    private Map<Postings, Integer> similarWords(String term) {
+        Map<Postings, Integer> words = new HashMap<>();
+        for (Postings postings : wordsStartingWith(term).values()) {
+            words.put(postings, 0);
+        }
+        int maxDistance = term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+        if (maxDistance == 0) {
+            return words;
+        }
+        
+        // Each edit changes at most three trigrams, so a word within the bound
+        // shares at least this many of the term's trigrams
+        List<String> trigrams = trigrams(term);
+        int minShared = Math.max(1, trigrams.size() - 3 * maxDistance);
+        Map<Postings, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            Set<Postings> containing = wordsByTrigram.get(trigram);
+            if (containing != null) {
+                for (Postings postings : containing) {
+                    shared.merge(postings, 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<Postings, Integer> entry : shared.entrySet()) {
+            Postings postings = entry.getKey();
+            if (entry.getValue() < minShared || words.containsKey(postings)
+                    || Math.abs(postings.word.length() - term.length()) > maxDistance) {
+                continue;
+            }
+            int distance = editDistance(term, postings.word, maxDistance);
+            if (distance <= maxDistance) {
+                words.put(postings, distance);
+            }
+        }
+        return words;
+    }
+    
+    private void addTrigrams(Postings postings) {
+        if (isNumber(postings.word)) {
+            return;
+        }
+        for (String trigram : trigrams(postings.word)) {
+            wordsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>(4)).add(postings);
+        }
+    }
+    
+    private void removeTrigrams(Postings postings) {
+        if (isNumber(postings.word)) {
+            return;
+        }
+        for (String trigram : trigrams(postings.word)) {
+            Set<Postings> containing = wordsByTrigram.get(trigram);
+            if (containing != null) {
+                containing.remove(postings);
+                if (containing.isEmpty()) {
+                    wordsByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+    
+    // Distinct trigrams of the word padded with two spaces on each side, so
+    // the start and end of the word count as well
+    static List<String> trigrams(String word) {
+        String padded = "  " + word + "  ";
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            String trigram = padded.substring(i, i + 3);
+            if (!trigrams.contains(trigram)) {
+                trigrams.add(trigram);
+            }
+        }
+        return trigrams;
+    }
+    
+    /**
+     * Levenshtein distance, giving up once it must exceed the bound
+     * @return the distance, or maxDistance + 1 if it is larger than maxDistance
+     */
+    static int editDistance(String a, String b, int maxDistance) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], maxDistance + 1);
+    }
+    
+    private static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private NavigableMap<String, Postings> wordsStartingWith(String prefix) {
+        return sortedWords.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+    
+    private static boolean sameWords(Postings[] postings, List<String> words) {
+        if (postings.length != words.size()) {
+            return false;
+        }
+        for (int i = 0; i < postings.length; i++) {
+            if (!postings[i].word.equals(words.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Splits text into distinct lower-case words of letters and digits,
+     * in order of first appearance
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = lower.substring(start, i);
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+}